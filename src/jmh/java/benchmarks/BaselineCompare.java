@@ -0,0 +1,103 @@
+package benchmarks;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file with a committed baseline and exits with status 1
+ * when any benchmark got slower, or allocates more per operation, by more than the
+ * tolerance in percent. Without a baseline it only says where to put one.
+ *
+ * Usage: BaselineCompare results.json baseline.json [tolerancePercent]
+ */
+public final class BaselineCompare {
+    // Named with a leading middle dot before JMH 1.36
+    private static final String[] ALLOCATION = {"gc.alloc.rate.norm", "\u00b7gc.alloc.rate.norm"};
+
+    private BaselineCompare() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path results = Paths.get(args[0]);
+        Path baseline = Paths.get(args[1]);
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        if (!Files.exists(baseline)) {
+            System.out.println("No benchmark baseline at " + baseline + "; copy " + results + " there to start tracking.");
+            return;
+        }
+
+        Map<String, Map<String, Object>> current = load(results);
+        Map<String, Map<String, Object>> previous = load(baseline);
+        int regressions = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : current.entrySet()) {
+            Map<String, Object> before = previous.get(entry.getKey());
+            if (before == null) {
+                System.out.println("NEW       " + entry.getKey());
+                continue;
+            }
+            Map<String, Object> after = entry.getValue();
+            boolean higherIsBetter = "thrpt".equals(after.get("mode"));
+            double change = percentChange(score(before, "primaryMetric"), score(after, "primaryMetric"));
+            double slower = higherIsBetter ? -change : change;
+            double allocation = percentChange(allocation(before), allocation(after));
+
+            String status = "OK       ";
+            if (slower > tolerance || allocation > tolerance) {
+                status = "REGRESSED";
+                regressions++;
+            }
+            System.out.printf("%s %s  time %+.1f%%  alloc %+.1f%%%n", status, entry.getKey(), slower, allocation);
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + tolerance + "%");
+            System.exit(1);
+        }
+    }
+
+    // Result entries keyed by benchmark, mode and parameters
+    private static Map<String, Map<String, Object>> load(Path file) throws IOException {
+        List<Map<String, Object>> entries = new Json().toType(Files.readString(file), Json.LIST_OF_MAPS_TYPE);
+        Map<String, Map<String, Object>> byKey = new LinkedHashMap<>();
+        for (Map<String, Object> entry : entries) {
+            Object params = entry.get("params");
+            String key = entry.get("benchmark") + " " + entry.get("mode")
+                    + (params instanceof Map<?, ?> map ? " " + new TreeMap<>(map) : "");
+            byKey.put(key, entry);
+        }
+        return byKey;
+    }
+
+    private static double score(Map<String, Object> entry, String metric) {
+        Object value = entry.get(metric);
+        if (!(value instanceof Map<?, ?> map)) return Double.NaN;
+        Object score = map.get("score");
+        return score instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+
+    private static double allocation(Map<String, Object> entry) {
+        Object secondary = entry.get("secondaryMetrics");
+        if (!(secondary instanceof Map<?, ?> map)) return Double.NaN;
+        for (String name : ALLOCATION) {
+            if (map.get(name) instanceof Map<?, ?> metric && metric.get("score") instanceof Number number) {
+                return number.doubleValue();
+            }
+        }
+        return Double.NaN;
+    }
+
+    // No change when either side is missing or the baseline is zero
+    private static double percentChange(double before, double after) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) return 0;
+        return (after - before) / before * 100;
+    }
+}
@@ -0,0 +1,122 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Synthetic plate-style CSV files for the benchmarks, generated once into
+ * target/jmh-fixtures and reused by later runs. The first columns always are
+ * Well, Sample, Target, Cq, Reps, Id so every shape can be queried the same way;
+ * wide files add filler columns after them. Quoted files quote every field and put
+ * commas and escaped quotes inside the Target values.
+ */
+final class CsvFixtures {
+    static final String[] COLUMNS = {"Well", "Sample", "Target", "Cq", "Reps", "Id"};
+    static final int WIDE_COLUMNS = 60;
+    static final int SAMPLES = 97;
+
+    private static final Path DIRECTORY = Paths.get(System.getProperty("jmh.fixtures", "target/jmh-fixtures"));
+
+    private CsvFixtures() {
+    }
+
+    // size like 10KB / 1MB / 1GB, shape narrow or wide, quoting plain or quoted
+    static Path fixture(String size, String shape, String quoting) {
+        long bytes = parseSize(size);
+        boolean wide = shape.equals("wide");
+        boolean quoted = quoting.equals("quoted");
+        Path file = DIRECTORY.resolve(size + "-" + shape + "-" + quoting + ".csv");
+        try {
+            if (Files.exists(file)) return file;
+            Files.createDirectories(DIRECTORY);
+            Path temp = Files.createTempFile(DIRECTORY, file.getFileName().toString(), ".tmp");
+            generate(temp, bytes, wide, quoted);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A throwaway copy for benchmarks that modify the file
+    static Path copy(Path fixture, Path target) {
+        try {
+            Files.copy(fixture, target, StandardCopyOption.REPLACE_EXISTING);
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Sample value present in every fixture, for filters
+    static String sample(int i) {
+        return "TRA" + (100000 + i % SAMPLES);
+    }
+
+    static long parseSize(String size) {
+        String unit = size.replaceAll("[0-9]", "").toUpperCase(Locale.ROOT);
+        long value = Long.parseLong(size.replaceAll("[^0-9]", ""));
+        switch (unit) {
+            case "KB":
+                return value * 1024;
+            case "MB":
+                return value * 1024 * 1024;
+            case "GB":
+                return value * 1024 * 1024 * 1024;
+            default:
+                return value;
+        }
+    }
+
+    static int rows(Path fixture) {
+        try (var lines = Files.lines(fixture)) {
+            return (int) lines.count() - 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void generate(Path file, long bytes, boolean wide, boolean quoted) throws IOException {
+        Random random = new Random(42);
+        int width = wide ? WIDE_COLUMNS : COLUMNS.length;
+        String[] cells = new String[width];
+        long written = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int c = 0; c < width; c++) cells[c] = c < COLUMNS.length ? COLUMNS[c] : "Extra" + c;
+            written += write(writer, cells, quoted);
+            for (int row = 0; written < bytes; row++) {
+                cells[0] = (char) ('A' + row % 16) + String.valueOf(1 + row % 24);
+                cells[1] = sample(row);
+                cells[2] = quoted ? "tra" + row % 7 + ", \"probe\"" : "tra" + row % 7;
+                cells[3] = row % 11 == 0 ? "" : String.format(Locale.ROOT, "%.3f", 15 + random.nextDouble() * 25);
+                cells[4] = String.valueOf(1 + row % 3);
+                cells[5] = String.valueOf(row);
+                for (int c = COLUMNS.length; c < width; c++) cells[c] = Integer.toString(random.nextInt(100000));
+                written += write(writer, cells, quoted);
+            }
+        }
+    }
+
+    private static int write(BufferedWriter writer, String[] cells, boolean quoted) throws IOException {
+        int length = 0;
+        for (int c = 0; c < cells.length; c++) {
+            if (c > 0) {
+                writer.write(',');
+                length++;
+            }
+            String cell = quoted ? '"' + cells[c].replace("\"", "\"\"") + '"' : cells[c];
+            writer.write(cell);
+            length += cell.length();
+        }
+        writer.newLine();
+        return length + System.lineSeparator().length();
+    }
+}
@@ -0,0 +1,149 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.CSVFileUtil;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Read, column and filter paths of CSVFileUtil; files small enough for the table cache are served from it
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class CsvReadBenchmark {
+
+    @Param({"10KB", "1MB", "100MB", "1GB"})
+    public String size;
+
+    @Param({"narrow", "wide"})
+    public String shape;
+
+    @Param({"plain", "quoted"})
+    public String quoting;
+
+    private String file;
+    private int rowIndex;
+    private List<Integer> rowIndices;
+    private String sample;
+
+    private static final List<String> COLUMNS = Arrays.asList("Well", "Cq");
+    private static final List<String> FILTER_COLUMNS = Arrays.asList("Sample", "Reps");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Path fixture = CsvFixtures.fixture(size, shape, quoting);
+        file = fixture.toString();
+        int rows = CsvFixtures.rows(fixture);
+        Random random = new Random(7);
+        rowIndex = 1 + random.nextInt(rows);
+        rowIndices = new ArrayList<>();
+        for (int i = 0; i < 100; i++) rowIndices.add(1 + random.nextInt(rows));
+        sample = CsvFixtures.sample(random.nextInt(CsvFixtures.SAMPLES));
+    }
+
+    @Benchmark
+    public List<String[]> readContent() {
+        return CSVFileUtil.readContentFromCSV(file);
+    }
+
+    @Benchmark
+    public String[] readRow() {
+        return CSVFileUtil.readRowFromCSV(file, rowIndex);
+    }
+
+    @Benchmark
+    public List<String[]> readRows() {
+        return CSVFileUtil.readRowsFromCSV(file, rowIndices);
+    }
+
+    @Benchmark
+    public List<String> readColumn() {
+        return CSVFileUtil.readColumnFromCSV(file, "Cq");
+    }
+
+    @Benchmark
+    public List<String> readColumnWithHeaderRow() {
+        return CSVFileUtil.readColumnFromCSV(file, "Cq", 0);
+    }
+
+    @Benchmark
+    public List<List<String>> readColumns() {
+        return CSVFileUtil.readColumnsFromCSV(file, COLUMNS);
+    }
+
+    @Benchmark
+    public List<List<String>> readColumnsWithHeaderRow() {
+        return CSVFileUtil.readColumnsFromCSV(file, COLUMNS, 0);
+    }
+
+    @Benchmark
+    public double[] readDoubleColumn() {
+        return CSVFileUtil.readDoubleColumnFromCSV(file, "Cq");
+    }
+
+    @Benchmark
+    public int[] readIntColumn() {
+        return CSVFileUtil.readIntColumnFromCSV(file, "Reps");
+    }
+
+    @Benchmark
+    public long[] readLongColumn() {
+        return CSVFileUtil.readLongColumnFromCSV(file, "Id");
+    }
+
+    public record Well(String well, String sample, String target, double cq, int reps, long id) {
+    }
+
+    @Benchmark
+    public List<Well> readRecords() {
+        return CSVFileUtil.readRecordsFromCSV(file, Well.class);
+    }
+
+    @Benchmark
+    public List<String[]> filterRows() {
+        return CSVFileUtil.filterRowsFromCSV(file, "Sample", sample);
+    }
+
+    @Benchmark
+    public List<String[]> filterRowsMultiColumn() {
+        return CSVFileUtil.filterRowsFromCSV(file, FILTER_COLUMNS, Arrays.asList(sample, "2"));
+    }
+
+    @Benchmark
+    public List<List<String>> filterRowsIncludeColumns() {
+        return CSVFileUtil.filterRowsFromCSV(file, "Sample", sample, COLUMNS);
+    }
+
+    @Benchmark
+    public List<List<String>> filterRowsMultiColumnIncludeColumns() {
+        return CSVFileUtil.filterRowsFromCSV(file, FILTER_COLUMNS, Arrays.asList(sample, "2"), COLUMNS);
+    }
+
+    @Benchmark
+    public List<String> filterColumn() {
+        return CSVFileUtil.filterColumnFromCSV(file, "Sample", sample);
+    }
+
+    @Benchmark
+    public List<List<String>> filterColumns() {
+        return CSVFileUtil.filterColumnsFromCSV(file, FILTER_COLUMNS, Arrays.asList(sample, "2"));
+    }
+}
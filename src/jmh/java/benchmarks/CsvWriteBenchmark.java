@@ -0,0 +1,134 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.CSVFileUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Append, rewrite and update paths of CSVFileUtil; each invocation works on a fresh copy of the fixture
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class CsvWriteBenchmark {
+
+    @Param({"10KB", "1MB", "100MB", "1GB"})
+    public String size;
+
+    @Param({"narrow", "wide"})
+    public String shape;
+
+    @Param({"plain", "quoted"})
+    public String quoting;
+
+    private Path fixture;
+    private Path directory;
+    private String file;
+    private List<String> column;
+    private List<List<String>> columns;
+    private List<String[]> appendRows;
+    private PrintStream out;
+    private int copies;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = CsvFixtures.fixture(size, shape, quoting);
+        directory = Files.createTempDirectory("csv-bench");
+        int rows = CsvFixtures.rows(fixture);
+        column = new ArrayList<>(rows);
+        List<String> reps = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            column.add(String.valueOf(i % 40));
+            reps.add(String.valueOf(i % 3));
+        }
+        columns = Arrays.asList(column, reps);
+        appendRows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            appendRows.add(new String[]{"A" + i, CsvFixtures.sample(i), "tra" + i, "21.5", "1", String.valueOf(i)});
+        }
+        // CSVFileUtil reports every write on stdout
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    // A new name every time: the shared appender keeps its file open, so a file must not be replaced under it
+    @Setup(Level.Invocation)
+    public void copyFixture() {
+        if (file != null) CSVFileUtil.deleteCSVFile(file);
+        file = CsvFixtures.copy(fixture, directory.resolve(copies++ + "-" + fixture.getFileName())).toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(out);
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void writeContent() {
+        CSVFileUtil.writeContentToCSV(file, appendRows);
+    }
+
+    @Benchmark
+    public void writeColumn() {
+        CSVFileUtil.writeColumnToCSV(file, "Result", column);
+    }
+
+    @Benchmark
+    public void writeColumns() {
+        CSVFileUtil.writeColumnsToCSV(file, Arrays.asList("Cq", "Reps"), columns);
+    }
+
+    @Benchmark
+    public void updateColumn() {
+        CSVFileUtil.updateColumnToCSV(file, "Cq", column);
+    }
+
+    @Benchmark
+    public void updateColumnWithHeaderRow() {
+        CSVFileUtil.updateColumnToCSV(file, "Cq", column, 0);
+    }
+
+    @Benchmark
+    public void updateColumns() {
+        CSVFileUtil.updateColumnsToCSV(file, Arrays.asList("Cq", "Reps"), columns);
+    }
+
+    @Benchmark
+    public void updateColumnsWithHeaderRow() {
+        CSVFileUtil.updateColumnsToCSV(file, Arrays.asList("Cq", "Reps"), columns, 0);
+    }
+
+    @Benchmark
+    public void createAndDeleteFile() {
+        String created = directory.resolve("created.csv").toString();
+        CSVFileUtil.createCSVFile(created);
+        CSVFileUtil.deleteCSVFile(created);
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebDriver;
+import utils.TestConstants;
+import utils.driver.DriverFactory;
+import utils.driver.LaunchProfile;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Browser launch and page load time per launch profile; needs the browser installed, so it is not in the default include:
+// mvn verify -P benchmark -Djmh.include=DriverLaunchBenchmark -Djmh.url=https://example.com
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DriverLaunchBenchmark {
+
+    @Param({"default", "ci-fast", "ci-fastest"})
+    public String profile;
+
+    @Param({"chrome"})
+    public String browser;
+
+    @Param({"true"})
+    public boolean headless;
+
+    private String url;
+    // Kept across invocations for pageLoad
+    private WebDriver warm;
+    // Started by launch, quit after each invocation
+    private WebDriver launched;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Forwarded to the forked JVM by the benchmark profile; empty unless -Djmh.url is given
+        String given = System.getProperty("jmh.url", "").trim();
+        url = given.isEmpty() ? TestConstants.BASE_URL : given;
+        warm = start();
+    }
+
+    @TearDown(Level.Invocation)
+    public void quitLaunched() {
+        if (launched != null) launched.quit();
+        launched = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        warm.quit();
+    }
+
+    @Benchmark
+    public WebDriver launch() {
+        launched = start();
+        return launched;
+    }
+
+    // Returns when the profile's page load strategy considers the page loaded
+    @Benchmark
+    public String pageLoad() {
+        warm.get(url);
+        return warm.getTitle();
+    }
+
+    private WebDriver start() {
+        return DriverFactory.createInstance(browser, headless, LaunchProfile.named(profile), List.of());
+    }
+}
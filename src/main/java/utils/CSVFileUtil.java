@@ -1,24 +1,24 @@
 package utils;
 
-import com.opencsv.CSVReader;
-import com.opencsv.CSVWriter;
-import com.opencsv.exceptions.CsvValidationException;
+import utils.csv.CsvAppender;
+import utils.csv.CsvIndexes;
+import utils.csv.CsvParallel;
+import utils.csv.CsvQuery;
+import utils.csv.CsvRow;
+import utils.csv.CsvRowIndex;
+import utils.csv.CsvSource;
+import utils.csv.CsvTable;
+import utils.csv.CsvTableCache;
+import utils.csv.CsvUpdate;
 
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.stream.Stream;
 
-public class CSVFileUtil {
+import static utils.csv.CsvQuery.col;
 
-    private static void writeContent(String filePath, List<String[]> rows) {
-        try (PrintWriter writer = new PrintWriter(new File(filePath))) {
-            for (String[] row : rows) {
-                writer.println(String.join(",", row));
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
+public class CSVFileUtil {
 
     // Create a new CSV file (if not exists)
     public static void createCSVFile(String filePath) {
@@ -41,7 +41,13 @@ public class CSVFileUtil {
             if (!Files.exists(path)) {
                 System.out.println("File does not exist: " + filePath);
             }
-            Files.delete(path);
+            CsvAppender.whileClosed(path, file -> {
+                try {
+                    Files.delete(file);
+                } finally {
+                    invalidateCaches(file);
+                }
+            });
             System.out.println("File deleted: " + filePath);
         } catch (IOException e) {
             System.err.println("Error deleting file: " + e.getMessage());
@@ -52,50 +58,57 @@ public class CSVFileUtil {
     public static List<String[]> readContentFromCSV(String filePath) {
         List<String[]> content = new ArrayList<>();
 
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                content.add(line);
+        try {
+            CsvTable table = CsvTableCache.get(Paths.get(filePath));
+            if (table != null) {
+                for (int i = 0; i < table.rowCount(); i++) {
+                    content.add(table.row(i).toArray());
+                }
+                return content;
+            }
+            Path path = Paths.get(filePath);
+            if (Files.size(path) >= CsvParallel.THRESHOLD_BYTES) {
+                return CsvParallel.readAll(path);
             }
-        } catch (FileNotFoundException e) {
+            try (Stream<CsvRow> rows = CsvSource.of(filePath).rows()) {
+                rows.forEach(row -> content.add(row.toArray()));
+            }
+        } catch (NoSuchFileException | FileNotFoundException e) {
             System.err.println("File not found: " + filePath);
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error reading CSV file: " + e.getMessage());
-        } catch (CsvValidationException e) {
-            throw new RuntimeException(e);
         }
 
         return content;
     }
 
     // Write content to CSV file (append mode)
+    // Rows go through the file's shared appender, so concurrent callers never interleave
     public static void writeContentToCSV(String filePath, List<String[]> data) {
         if (data == null || data.isEmpty()) {
             System.err.println("No data provided to write.");
         }
 
-        try (CSVWriter writer = new CSVWriter(new FileWriter(filePath, true))) {
-            writer.writeAll(data);
+        try {
+            CsvAppender.appendAndWait(Paths.get(filePath), data);
             System.out.println("Data written successfully to: " + filePath);
         } catch (IOException e) {
             System.err.println("Error writing to CSV file: " + e.getMessage());
         }
     }
 
-    // Read a specific row from the CSV file, starting 0 index
+    // Read a specific row from the CSV file, starting 0 index; a table is only used when already cached,
+    // otherwise the row index reads just that row
     public static String[] readRowFromCSV(String filePath, int rowIndex) {
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            int currentRow = 0;
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                if (currentRow == rowIndex) {
-                    return line;
-                }
-                currentRow++;
+        try {
+            CsvTable table = CsvTableCache.peek(Paths.get(filePath));
+            if (table != null) {
+                return rowIndex >= 0 && rowIndex < table.rowCount() ? table.row(rowIndex).toArray() : null;
             }
-        } catch (FileNotFoundException e) {
+            return CsvRowIndex.forFile(Paths.get(filePath)).readRow(rowIndex);
+        } catch (NoSuchFileException e) {
             System.err.println("File not found: " + filePath);
-        } catch (IOException | CsvValidationException e) {
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error reading CSV file: " + e.getMessage());
         }
         return null;
@@ -104,19 +117,21 @@ public class CSVFileUtil {
     // Read multiple specific rows from the CSV file
     public static List<String[]> readRowsFromCSV(String filePath, List<Integer> rowIndices) {
         List<String[]> result = new ArrayList<>();
-        Set<Integer> rowSet = new HashSet<>(rowIndices); // to avoid duplicates and fast lookup
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            int currentRow = 0;
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                if (rowSet.contains(currentRow)) {
-                    result.add(line);
+        Set<Integer> rowSet = new TreeSet<>(rowIndices); // to avoid duplicates and keep file order
+        try {
+            CsvTable table = CsvTableCache.peek(Paths.get(filePath));
+            if (table != null) {
+                for (int rowIndex : rowSet) {
+                    if (rowIndex >= 0 && rowIndex < table.rowCount()) {
+                        result.add(table.row(rowIndex).toArray());
+                    }
                 }
-                currentRow++;
+                return result;
             }
-        } catch (FileNotFoundException e) {
+            result.addAll(CsvRowIndex.forFile(Paths.get(filePath)).readRows(rowSet));
+        } catch (NoSuchFileException e) {
             System.err.println("File not found: " + filePath);
-        } catch (IOException | CsvValidationException e) {
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error reading CSV file: " + e.getMessage());
         }
         return result;
@@ -124,673 +139,399 @@ public class CSVFileUtil {
 
     // Read a specific column from the CSV file by header name
     public static List<String> readColumnFromCSV(String filePath, String column) {
-        List<String> columnData = new ArrayList<>();
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            String[] header = reader.readNext();
-            if (header == null) return columnData;
-            int columnIndex = -1;
-            for (int i = 0; i < header.length; i++) {
-                if (header[i].equalsIgnoreCase(column.trim())) {
-                    columnIndex = i;
-                    break;
-                }
-            }
-
-            if (columnIndex == -1) {
-                System.err.println("Column not found: " + column);
-                return columnData;
-            }
-
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                if (columnIndex < line.length) {
-                    columnData.add(line[columnIndex]);
-                } else {
-                    columnData.add(""); // Handle missing value
-                }
-            }
-        } catch (IOException | CsvValidationException e) {
-            System.err.println("Error reading CSV column: " + e.getMessage());
-        }
-        return columnData;
+        return readColumnFromCSV(filePath, column, 0);
     }
 
     // Read multiple columns from the CSV file by header names
     public static List<List<String>> readColumnsFromCSV(String filePath, List<String> columns) {
-        List<List<String>> columnsData = new ArrayList<>();
-        for (int i = 0; i < columns.size(); i++) {
-            columnsData.add(new ArrayList<>());
-        }
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            String[] header = reader.readNext();
-            if (header == null) return columnsData;
-            List<Integer> columnIndexes = new ArrayList<>();
-            for (String col : columns) {
-                int idx = -1;
-                for (int i = 0; i < header.length; i++) {
-                    if (header[i].equalsIgnoreCase(col.trim())) {
-                        idx = i;
-                        break;
-                    }
-                }
-                columnIndexes.add(idx);
-            }
-            for (int i = 0; i < columnIndexes.size(); i++) {
-                if (columnIndexes.get(i) == -1) {
-                    System.err.println("Column not found: " + columns.get(i));
-                }
-            }
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                for (int i = 0; i < columnIndexes.size(); i++) {
-                    int colIdx = columnIndexes.get(i);
-                    if (colIdx >= 0 && colIdx < line.length) {
-                        columnsData.get(i).add(line[colIdx]);
-                    } else {
-                        columnsData.get(i).add(""); // Handle missing value
-                    }
-                }
-            }
-        } catch (IOException | CsvValidationException e) {
-            System.err.println("Error reading CSV columns: " + e.getMessage());
-        }
-        return columnsData;
+        return readColumnsFromCSV(filePath, columns, 0);
     }
 
     // Read a specific column from the CSV file by header name, with configurable header row
     // headerRowNum - 1
     public static List<String> readColumnFromCSV(String filePath, String column, int headerRow) {
-        List<String> columnData = new ArrayList<>();
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            // Skip rows before headerRow
-            for (int i = 0; i < headerRow; i++) {
-                if (reader.readNext() == null) {
-                    // File ended before header row
-                    return columnData;
-                }
-            }
-
-            String[] header = reader.readNext();
-            if (header == null) return columnData;
-
-            int columnIndex = -1;
-            for (int i = 0; i < header.length; i++) {
-                if (header[i].equalsIgnoreCase(column.trim())) {
-                    columnIndex = i;
-                    break;
-                }
-            }
+        try {
+            String[] header = header(filePath, headerRow);
+            if (header == null) return new ArrayList<>();
 
+            int columnIndex = indexOfIgnoreCase(header, column);
             if (columnIndex == -1) {
                 System.err.println("Column not found: " + column);
-                return columnData;
+                return new ArrayList<>();
             }
 
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                if (columnIndex < line.length) {
-                    columnData.add(line[columnIndex]);
-                } else {
-                    columnData.add(""); // Handle missing value
-                }
-            }
-        } catch (IOException | CsvValidationException e) {
+            return CsvQuery.from(filePath).headerRow(headerRow).select(columnIndex).toColumns().get(0);
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error reading CSV column: " + e.getMessage());
         }
-        return columnData;
+        return new ArrayList<>();
     }
 
     // Read multiple columns from the CSV file by header names, with configurable header row
     public static List<List<String>> readColumnsFromCSV(String filePath, List<String> columns, int headerRow) {
-        List<List<String>> columnsData = new ArrayList<>();
-        for (int i = 0; i < columns.size(); i++) {
-            columnsData.add(new ArrayList<>());
-        }
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            // Skip rows before headerRow
-            for (int i = 0; i < headerRow; i++) {
-                if (reader.readNext() == null) {
-                    // File ended before header row
-                    return columnsData;
+        try {
+            String[] header = header(filePath, headerRow);
+            if (header != null) {
+                int[] columnIndexes = new int[columns.size()];
+                for (int i = 0; i < columns.size(); i++) {
+                    columnIndexes[i] = indexOfIgnoreCase(header, columns.get(i));
+                    if (columnIndexes[i] == -1) {
+                        System.err.println("Column not found: " + columns.get(i)); // Read as empty values
+                    }
                 }
+                return CsvQuery.from(filePath).headerRow(headerRow).select(columnIndexes).toColumns();
             }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading CSV columns: " + e.getMessage());
+        }
+        return emptyColumns(columns.size());
+    }
 
-            String[] header = reader.readNext();
-            if (header == null) return columnsData;
+    // Map each data row onto a record; components match header names ignoring case, spaces and punctuation
+    public static <R extends Record> List<R> readRecordsFromCSV(String filePath, Class<R> type) {
+        return readRecordsFromCSV(filePath, type, 0);
+    }
 
-            List<Integer> columnIndexes = new ArrayList<>();
-            for (String col : columns) {
-                int idx = -1;
-                for (int i = 0; i < header.length; i++) {
-                    if (header[i].equalsIgnoreCase(col.trim())) {
-                        idx = i;
-                        break;
-                    }
-                }
-                columnIndexes.add(idx);
-            }
+    public static <R extends Record> List<R> readRecordsFromCSV(String filePath, Class<R> type, int headerRow) {
+        try {
+            return CsvQuery.from(filePath).headerRow(headerRow).toRecords(type);
+        } catch (NoSuchFileException e) {
+            System.err.println("File not found: " + filePath);
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.err.println("Error reading CSV records: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
 
-            for (int i = 0; i < columnIndexes.size(); i++) {
-                if (columnIndexes.get(i) == -1) {
-                    System.err.println("Column not found: " + columns.get(i));
-                }
-            }
+    // Numeric column as a primitive array; blank cells read as 0
+    public static int[] readIntColumnFromCSV(String filePath, String column) {
+        try {
+            return CsvQuery.from(filePath).select(column).toInts();
+        } catch (NoSuchFileException e) {
+            System.err.println("File not found: " + filePath);
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.err.println("Error reading CSV column: " + e.getMessage());
+        }
+        return new int[0];
+    }
 
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                for (int i = 0; i < columnIndexes.size(); i++) {
-                    int colIdx = columnIndexes.get(i);
-                    if (colIdx >= 0 && colIdx < line.length) {
-                        columnsData.get(i).add(line[colIdx]);
-                    } else {
-                        columnsData.get(i).add(""); // Handle missing value
-                    }
-                }
-            }
-        } catch (IOException | CsvValidationException e) {
-            System.err.println("Error reading CSV columns: " + e.getMessage());
+    public static long[] readLongColumnFromCSV(String filePath, String column) {
+        try {
+            return CsvQuery.from(filePath).select(column).toLongs();
+        } catch (NoSuchFileException e) {
+            System.err.println("File not found: " + filePath);
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.err.println("Error reading CSV column: " + e.getMessage());
+        }
+        return new long[0];
+    }
+
+    // Blank cells read as NaN
+    public static double[] readDoubleColumnFromCSV(String filePath, String column) {
+        try {
+            return CsvQuery.from(filePath).select(column).toDoubles();
+        } catch (NoSuchFileException e) {
+            System.err.println("File not found: " + filePath);
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.err.println("Error reading CSV column: " + e.getMessage());
         }
-        return columnsData;
+        return new double[0];
     }
 
     // Append
     public static void writeColumnToCSV(String filePath, String column, List<String> data) {
         File file = new File(filePath);
-        List<String[]> allRows = readContentFromCSV(filePath);
-        List<String> headers = new ArrayList<>();
 
         if (!file.exists()) {
-            headers.add(column);
-            try (PrintWriter writer = new PrintWriter(file)) {
-                writer.println(column);
-                for (String value : data) {
-                    writer.println(value);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        } else {
-            try (PrintWriter writer = new PrintWriter(file)) {
-                if (!allRows.isEmpty()) {
-                    headers.addAll(Arrays.asList(allRows.get(0)));
-                    headers.add(column);
-                    writer.println(String.join(",", headers));
-
-                    for (int i = 0; i < Math.max(data.size(), allRows.size() - 1); i++) {
-                        String[] row = i < allRows.size() - 1 ? allRows.get(i + 1) : new String[headers.size() - 1];
-                        List<String> newRow = new ArrayList<>(Arrays.asList(row));
-                        while (newRow.size() < headers.size() - 1) newRow.add("");
-                        newRow.add(i < data.size() ? data.get(i) : "");
-                        writer.println(String.join(",", newRow));
+            try {
+                CsvAppender.whileClosed(file.toPath(), path -> {
+                    try (PrintWriter writer = new PrintWriter(path.toFile())) {
+                        writer.println(column);
+                        for (String value : data) {
+                            writer.println(value);
+                        }
+                    } finally {
+                        invalidateCaches(path);
                     }
-                }
+                });
             } catch (IOException e) {
                 e.printStackTrace();
             }
+        } else {
+            update(filePath, CsvUpdate.of(file.toPath()).append(column, data));
         }
     }
 
     // Append
     public static void writeColumnsToCSV(String filePath, List<String> columns, List<List<String>> data) {
-        try (PrintWriter writer = new PrintWriter(new File(filePath))) {
-            writer.println(String.join(",", columns));
-            for (int i = 0; i < data.get(0).size(); i++) {
-                List<String> row = new ArrayList<>();
-                for (List<String> columnData : data) {
-                    row.add(i < columnData.size() ? columnData.get(i) : "");
+        try {
+            // Appends wait until the file is rewritten, so none are lost to the truncation
+            CsvAppender.whileClosed(Paths.get(filePath), path -> {
+                try (PrintWriter writer = new PrintWriter(path.toFile())) {
+                    writer.println(String.join(",", columns));
+                    for (int i = 0; i < data.get(0).size(); i++) {
+                        List<String> row = new ArrayList<>();
+                        for (List<String> columnData : data) {
+                            row.add(i < columnData.size() ? columnData.get(i) : "");
+                        }
+                        writer.println(String.join(",", row));
+                    }
+                } finally {
+                    invalidateCaches(path);
                 }
-                writer.println(String.join(",", row));
-            }
+            });
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     public static void updateColumnToCSV(String filePath, String column, List<String> data) {
-        List<String[]> rows = readContentFromCSV(filePath);
-        if (rows.isEmpty()) return;
-
-        String[] headers = rows.get(0);
-        List<String[]> updatedRows = new ArrayList<>();
-        int colIndex = -1;
-
-        // Determine if column exists
-        for (int i = 0; i < headers.length; i++) {
-            if (headers[i].equals(column)) {
-                colIndex = i;
-                break;
-            }
-        }
-
-        if (colIndex == -1) {
-            // Add new column
-            headers = Arrays.copyOf(headers, headers.length + 1);
-            headers[headers.length - 1] = column;
-            colIndex = headers.length - 1;
-        }
-
-        updatedRows.add(headers);
-
-        int maxRows = Math.max(rows.size() - 1, data.size());
-        for (int i = 0; i < maxRows; i++) {
-            String[] baseRow = i + 1 < rows.size() ? rows.get(i + 1) : new String[headers.length];
-            String[] newRow = Arrays.copyOf(baseRow, headers.length);
-            newRow[colIndex] = i < data.size() ? data.get(i) : "";
-            updatedRows.add(newRow);
-        }
-
-        writeContent(filePath, updatedRows);
+        updateColumnToCSV(filePath, column, data, 0);
     }
 
     public static void updateColumnsToCSV(String filePath, List<String> columns, List<List<String>> data) {
-        List<String[]> rows = readContentFromCSV(filePath);
-        if (rows.isEmpty()) return;
-
-        String[] headers = rows.get(0);
-        Map<String, Integer> headerMap = new HashMap<>();
-        for (int i = 0; i < headers.length; i++) {
-            headerMap.put(headers[i], i);
-        }
-
-        // Update header
-        List<String> updatedHeaderList = new ArrayList<>(Arrays.asList(headers));
-        List<Integer> targetIndices = new ArrayList<>();
-
-        for (String col : columns) {
-            if (!headerMap.containsKey(col)) {
-                updatedHeaderList.add(col);
-                targetIndices.add(updatedHeaderList.size() - 1);
-            } else {
-                targetIndices.add(headerMap.get(col));
-            }
-        }
-
-        int totalCols = updatedHeaderList.size();
-        int maxRows = Math.max(rows.size() - 1, data.get(0).size());
-        List<String[]> updatedRows = new ArrayList<>();
-        updatedRows.add(updatedHeaderList.toArray(new String[0]));
-
-        for (int i = 0; i < maxRows; i++) {
-            String[] baseRow = i + 1 < rows.size() ? rows.get(i + 1) : new String[totalCols];
-            String[] newRow = Arrays.copyOf(baseRow, totalCols);
-            for (int j = 0; j < columns.size(); j++) {
-                int index = targetIndices.get(j);
-                if (index >= newRow.length) {
-                    newRow = Arrays.copyOf(newRow, index + 1);
-                }
-                newRow[index] = i < data.get(j).size() ? data.get(j).get(i) : "";
-            }
-            updatedRows.add(newRow);
-        }
-
-        writeContent(filePath, updatedRows);
+        updateColumnsToCSV(filePath, columns, data, 0);
     }
 
     public static void updateColumnToCSV(String filePath, String column, List<String> data, int headerRow) {
-        List<String[]> rows = readContentFromCSV(filePath);
-        if (rows.isEmpty() || headerRow >= rows.size()) return;
-
-        // Get headers from the specified header row
-        String[] headers = rows.get(headerRow);
-        List<String[]> updatedRows = new ArrayList<>();
-
-        int colIndex = -1;
-        for (int i = 0; i < headers.length; i++) {
-            if (headers[i].equals(column)) {
-                colIndex = i;
-                break;
-            }
-        }
-
-        if (colIndex == -1) {
-            // Add new column header
-            headers = Arrays.copyOf(headers, headers.length + 1);
-            headers[headers.length - 1] = column;
-            colIndex = headers.length - 1;
-        }
-
-        // Copy all rows before headerRow unchanged
-        for (int i = 0; i < headerRow; i++) {
-            updatedRows.add(rows.get(i));
-        }
-
-        // Add updated header row
-        updatedRows.add(headers);
-
-        int maxRows = Math.max(rows.size() - (headerRow + 1), data.size());
-
-        for (int i = 0; i < maxRows; i++) {
-            int currentRowIndex = i + headerRow + 1;
-            String[] baseRow = currentRowIndex < rows.size() ? rows.get(currentRowIndex) : new String[headers.length];
-            String[] newRow = Arrays.copyOf(baseRow, headers.length);
-
-            newRow[colIndex] = i < data.size() ? data.get(i) : "";
-            updatedRows.add(newRow);
-        }
-
-        writeContent(filePath, updatedRows);
+        update(filePath, CsvUpdate.of(Paths.get(filePath)).headerRow(headerRow).set(column, data));
     }
 
+    // All columns are patched in one pass over the file
     public static void updateColumnsToCSV(String filePath, List<String> columns, List<List<String>> data, int headerRow) {
-        List<String[]> rows = readContentFromCSV(filePath);
-        if (rows.isEmpty() || headerRow >= rows.size()) return;
-
-        String[] headers = rows.get(headerRow);
-        Map<String, Integer> headerMap = new HashMap<>();
-        for (int i = 0; i < headers.length; i++) {
-            headerMap.put(headers[i], i);
-        }
-
-        List<String> updatedHeaderList = new ArrayList<>(Arrays.asList(headers));
-        List<Integer> targetIndices = new ArrayList<>();
-
-        for (String col : columns) {
-            if (!headerMap.containsKey(col)) {
-                updatedHeaderList.add(col);
-                targetIndices.add(updatedHeaderList.size() - 1);
-            } else {
-                targetIndices.add(headerMap.get(col));
-            }
-        }
-
-        int totalCols = updatedHeaderList.size();
-        int maxRows = Math.max(rows.size() - (headerRow + 1), data.get(0).size());
-        List<String[]> updatedRows = new ArrayList<>();
-
-        // Add all rows before headerRow unchanged
-        for (int i = 0; i < headerRow; i++) {
-            updatedRows.add(rows.get(i));
-        }
-
-        // Add updated header row
-        updatedRows.add(updatedHeaderList.toArray(new String[0]));
-
-        for (int i = 0; i < maxRows; i++) {
-            int currentRowIndex = i + headerRow + 1;
-            String[] baseRow = currentRowIndex < rows.size() ? rows.get(currentRowIndex) : new String[totalCols];
-            String[] newRow = Arrays.copyOf(baseRow, totalCols);
-
-            for (int j = 0; j < columns.size(); j++) {
-                int index = targetIndices.get(j);
-                if (index >= newRow.length) {
-                    newRow = Arrays.copyOf(newRow, index + 1);
-                }
-                newRow[index] = i < data.get(j).size() ? data.get(j).get(i) : "";
-            }
-            updatedRows.add(newRow);
+        CsvUpdate update = CsvUpdate.of(Paths.get(filePath)).headerRow(headerRow);
+        for (int i = 0; i < columns.size(); i++) {
+            update.set(columns.get(i), data.get(i));
         }
-
-        writeContent(filePath, updatedRows);
+        update(filePath, update);
     }
 
     public static List<String[]> filterRowsFromCSV(String filePath, String columnName, String columnValue) {
-        List<String[]> filteredRows = new ArrayList<>();
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            String[] header = reader.readNext();
-            if (header == null) return filteredRows;
-
-            int colIndex = -1;
-            for (int i = 0; i < header.length; i++) {
-                if (header[i].equalsIgnoreCase(columnName.trim())) {
-                    colIndex = i;
-                    break;
-                }
-            }
+        try {
+            String[] header = header(filePath, 0);
+            if (header == null) return new ArrayList<>();
 
+            int colIndex = indexOfIgnoreCase(header, columnName);
             if (colIndex == -1) {
                 System.err.println("Column not found: " + columnName);
-                return filteredRows;
+                return new ArrayList<>();
             }
 
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                if (colIndex < line.length && columnValue.equalsIgnoreCase(line[colIndex].trim())) {
-                    filteredRows.add(line);
-                }
-            }
-        } catch (IOException | CsvValidationException e) {
+            return CsvQuery.from(filePath).where(col(colIndex).eq(columnValue)).toArrays();
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error filtering CSV rows: " + e.getMessage());
         }
-        return filteredRows;
+        return new ArrayList<>();
     }
 
     public static List<String[]> filterRowsFromCSV(String filePath, List<String> columnsName, List<String> columnsValue) {
-        List<String[]> filteredRows = new ArrayList<>();
         if (columnsName == null || columnsValue == null || columnsName.size() != columnsValue.size()) {
             System.err.println("Column names and values must be non-null and have the same size.");
-            return filteredRows;
+            return new ArrayList<>();
         }
 
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            String[] header = reader.readNext();
-            if (header == null) return filteredRows;
+        try {
+            String[] header = header(filePath, 0);
+            if (header == null) return new ArrayList<>();
 
-            Map<String, Integer> colIndexMap = new HashMap<>();
-            for (int i = 0; i < header.length; i++) {
-                colIndexMap.put(header[i].trim(), i);
-            }
+            Map<String, Integer> colIndexMap = trimmedHeaderMap(header);
 
             // Validate all column names exist
             for (String colName : columnsName) {
                 if (!colIndexMap.containsKey(colName.trim())) {
                     System.err.println("Column not found: " + colName);
-                    return filteredRows;
+                    return new ArrayList<>();
                 }
             }
 
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                boolean matches = true;
-                for (int i = 0; i < columnsName.size(); i++) {
-                    String col = columnsName.get(i).trim();
-                    String val = columnsValue.get(i).trim();
-                    int colIndex = colIndexMap.get(col);
-                    if (colIndex >= line.length || !val.equalsIgnoreCase(line[colIndex].trim())) {
-                        matches = false;
-                        break;
-                    }
-                }
-                if (matches) {
-                    filteredRows.add(line);
-                }
+            CsvQuery query = CsvQuery.from(filePath);
+            for (int i = 0; i < columnsName.size(); i++) {
+                query.where(col(colIndexMap.get(columnsName.get(i).trim())).eq(columnsValue.get(i).trim()));
             }
-        } catch (IOException | CsvValidationException e) {
+            return query.toArrays();
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error filtering CSV rows: " + e.getMessage());
         }
-        return filteredRows;
+        return new ArrayList<>();
     }
 
     public static List<List<String>> filterRowsFromCSV(String filePath, String columnName, String columnValue, List<String> columnsToIncludeInRow) {
-        List<List<String>> result = new ArrayList<>();
-
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            String[] header = reader.readNext();
-            if (header == null) return result;
+        try {
+            String[] header = header(filePath, 0);
+            if (header == null) return new ArrayList<>();
 
-            Map<String, Integer> headerMap = new HashMap<>();
-            for (int i = 0; i < header.length; i++) {
-                headerMap.put(header[i].trim(), i);
-            }
+            Map<String, Integer> headerMap = trimmedHeaderMap(header);
 
             if (!headerMap.containsKey(columnName)) {
                 System.err.println("Filter column not found: " + columnName);
-                return result;
+                return new ArrayList<>();
             }
 
-            List<Integer> includedIndices = new ArrayList<>();
-            for (String col : columnsToIncludeInRow) {
-                if (headerMap.containsKey(col)) {
-                    includedIndices.add(headerMap.get(col));
-                } else {
-                    System.err.println("Included column not found: " + col);
-                    includedIndices.add(-1);
-                }
-            }
-
-            int filterIndex = headerMap.get(columnName);
-
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                if (filterIndex < line.length && columnValue.equalsIgnoreCase(line[filterIndex].trim())) {
-                    List<String> row = new ArrayList<>();
-                    for (int idx : includedIndices) {
-                        row.add(idx >= 0 && idx < line.length ? line[idx] : "");
-                    }
-                    result.add(row);
-                }
-            }
-        } catch (IOException | CsvValidationException e) {
+            return CsvQuery.from(filePath)
+                    .where(col(headerMap.get(columnName)).eq(columnValue))
+                    .select(includedIndices(headerMap, columnsToIncludeInRow))
+                    .toLists();
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error filtering rows from CSV: " + e.getMessage());
         }
 
-        return result;
+        return new ArrayList<>();
     }
 
     public static List<List<String>> filterRowsFromCSV(String filePath, List<String> columnNames, List<String> columnValues, List<String> columnsToIncludeInRow) {
-        List<List<String>> result = new ArrayList<>();
-
         if (columnNames == null || columnValues == null || columnNames.size() != columnValues.size()) {
             System.err.println("Filter column names and values must be non-null and the same size.");
-            return result;
+            return new ArrayList<>();
         }
 
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            String[] header = reader.readNext();
-            if (header == null) return result;
+        try {
+            String[] header = header(filePath, 0);
+            if (header == null) return new ArrayList<>();
 
-            Map<String, Integer> headerMap = new HashMap<>();
-            for (int i = 0; i < header.length; i++) {
-                headerMap.put(header[i].trim(), i);
-            }
+            Map<String, Integer> headerMap = trimmedHeaderMap(header);
 
-            List<Integer> filterIndices = new ArrayList<>();
-            for (String col : columnNames) {
-                if (headerMap.containsKey(col)) {
-                    filterIndices.add(headerMap.get(col));
-                } else {
+            CsvQuery query = CsvQuery.from(filePath);
+            for (int i = 0; i < columnNames.size(); i++) {
+                String col = columnNames.get(i);
+                if (!headerMap.containsKey(col)) {
                     System.err.println("Filter column not found: " + col);
-                    return result;
+                    return new ArrayList<>();
                 }
+                query.where(col(headerMap.get(col)).eq(columnValues.get(i).trim()));
             }
 
-            List<Integer> includedIndices = new ArrayList<>();
-            for (String col : columnsToIncludeInRow) {
-                if (headerMap.containsKey(col)) {
-                    includedIndices.add(headerMap.get(col));
-                } else {
-                    System.err.println("Included column not found: " + col);
-                    includedIndices.add(-1);
-                }
-            }
-
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                boolean matches = true;
-                for (int i = 0; i < filterIndices.size(); i++) {
-                    int idx = filterIndices.get(i);
-                    String expected = columnValues.get(i).trim();
-                    if (idx >= line.length || !expected.equalsIgnoreCase(line[idx].trim())) {
-                        matches = false;
-                        break;
-                    }
-                }
-
-                if (matches) {
-                    List<String> row = new ArrayList<>();
-                    for (int idx : includedIndices) {
-                        row.add(idx >= 0 && idx < line.length ? line[idx] : "");
-                    }
-                    result.add(row);
-                }
-            }
-        } catch (IOException | CsvValidationException e) {
+            return query.select(includedIndices(headerMap, columnsToIncludeInRow)).toLists();
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error filtering rows from CSV: " + e.getMessage());
         }
 
-        return result;
+        return new ArrayList<>();
     }
 
     public static List<String> filterColumnFromCSV(String filePath, String columnName, String columnValue) {
-        List<String> result = new ArrayList<>();
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            String[] header = reader.readNext();
-            if (header == null) return result;
-
-            Map<String, Integer> colMap = new HashMap<>();
-            for (int i = 0; i < header.length; i++) {
-                colMap.put(header[i].trim(), i);
-            }
+        try {
+            String[] header = header(filePath, 0);
+            if (header == null) return new ArrayList<>();
+
+            Map<String, Integer> colMap = trimmedHeaderMap(header);
 
             if (!colMap.containsKey(columnName)) {
                 System.err.println("Column not found: " + columnName);
-                return result;
+                return new ArrayList<>();
             }
 
             int matchIndex = colMap.get(columnName);
-
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                if (matchIndex < line.length && columnValue.equalsIgnoreCase(line[matchIndex].trim())) {
-                    result.add(line[matchIndex]);
-                }
-            }
-        } catch (IOException | CsvValidationException e) {
+            return CsvQuery.from(filePath).where(col(matchIndex).eq(columnValue)).select(matchIndex).toColumns().get(0);
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error filtering CSV column: " + e.getMessage());
         }
-        return result;
+        return new ArrayList<>();
     }
 
     public static List<List<String>> filterColumnsFromCSV(String filePath, List<String> columnsName, List<String> columnsValue) {
-        List<List<String>> result = new ArrayList<>();
-        for (int i = 0; i < columnsName.size(); i++) {
-            result.add(new ArrayList<>());
-        }
-
         if (columnsName == null || columnsValue == null || columnsName.size() != columnsValue.size()) {
             System.err.println("Column names and values must be non-null and have the same size.");
-            return result;
+            return new ArrayList<>();
         }
 
-        try (CSVReader reader = new CSVReader(new FileReader(filePath))) {
-            String[] header = reader.readNext();
-            if (header == null) return result;
+        try {
+            String[] header = header(filePath, 0);
+            if (header != null) {
+                Map<String, Integer> colMap = trimmedHeaderMap(header);
+
+                for (String col : columnsName) {
+                    if (!colMap.containsKey(col.trim())) {
+                        System.err.println("Column not found: " + col);
+                        return emptyColumns(columnsName.size());
+                    }
+                }
 
-            Map<String, Integer> colMap = new HashMap<>();
-            for (int i = 0; i < header.length; i++) {
-                colMap.put(header[i].trim(), i);
+                CsvQuery query = CsvQuery.from(filePath);
+                int[] indices = new int[columnsName.size()];
+                for (int i = 0; i < indices.length; i++) {
+                    indices[i] = colMap.get(columnsName.get(i).trim());
+                    query.where(col(indices[i]).eq(columnsValue.get(i).trim()));
+                }
+                return query.select(indices).toColumns();
             }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error filtering CSV columns: " + e.getMessage());
+        }
 
-            for (String col : columnsName) {
-                if (!colMap.containsKey(col.trim())) {
-                    System.err.println("Column not found: " + col);
-                    return result;
-                }
+        return emptyColumns(columnsName.size());
+    }
+
+    // Header row of the file, or null when the file ends before it
+    private static String[] header(String filePath, int headerRow) throws IOException {
+        try (CsvSource.Records records = records(filePath, headerRow)) {
+            return records.header();
+        }
+    }
+
+    private static List<List<String>> emptyColumns(int count) {
+        List<List<String>> columns = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            columns.add(new ArrayList<>());
+        }
+        return columns;
+    }
+
+    // Served from the shared columnar cache when the file fits, otherwise streamed from disk
+    private static CsvSource.Records records(String filePath, int headerRow) throws IOException {
+        return CsvTableCache.records(Paths.get(filePath), headerRow);
+    }
+
+    // Streams the file through the update engine and swaps the result in atomically
+    private static void update(String filePath, CsvUpdate update) {
+        try {
+            if (!update.apply()) {
+                System.err.println("Error updating CSV file: " + filePath + " ends before the header row");
             }
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            System.err.println("File not found: " + filePath);
+        } catch (IOException e) {
+            System.err.println("Error updating CSV file: " + e.getMessage());
+        }
+    }
 
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                boolean match = true;
-                for (int i = 0; i < columnsName.size(); i++) {
-                    String col = columnsName.get(i).trim();
-                    String val = columnsValue.get(i).trim();
-                    int index = colMap.get(col);
-                    if (index >= line.length || !val.equalsIgnoreCase(line[index].trim())) {
-                        match = false;
-                        break;
-                    }
-                }
+    private static void invalidateCaches(Path path) {
+        CsvAppender.closeFile(path);
+        CsvRowIndex.invalidate(path);
+        CsvTableCache.invalidate(path);
+        CsvIndexes.invalidate(path);
+    }
 
-                if (match) {
-                    for (int i = 0; i < columnsName.size(); i++) {
-                        int index = colMap.get(columnsName.get(i).trim());
-                        result.get(i).add(index < line.length ? line[index] : "");
-                    }
-                }
+    // First header cell equal (ignoring case) to the trimmed column name, or -1
+    private static int indexOfIgnoreCase(String[] header, String column) {
+        String name = column.trim();
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equalsIgnoreCase(name)) {
+                return i;
             }
-        } catch (IOException | CsvValidationException e) {
-            System.err.println("Error filtering CSV columns: " + e.getMessage());
         }
+        return -1;
+    }
 
-        return result;
+    // Trimmed header name -> index; a repeated name maps to its last occurrence
+    private static Map<String, Integer> trimmedHeaderMap(String[] header) {
+        Map<String, Integer> headerMap = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            headerMap.put(header[i].trim(), i);
+        }
+        return headerMap;
+    }
+
+    private static int[] includedIndices(Map<String, Integer> headerMap, List<String> columnsToInclude) {
+        int[] indices = new int[columnsToInclude.size()];
+        for (int i = 0; i < indices.length; i++) {
+            String col = columnsToInclude.get(i);
+            if (headerMap.containsKey(col)) {
+                indices[i] = headerMap.get(col);
+            } else {
+                System.err.println("Included column not found: " + col);
+                indices[i] = -1;
+            }
+        }
+        return indices;
     }
 }
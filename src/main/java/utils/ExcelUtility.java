@@ -1,4 +1,298 @@
 package utils;
 
+import utils.csv.CsvRow;
+import utils.excel.XlsxReader;
+import utils.excel.XlsxWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Same row, column and filter operations as CSVFileUtil, on the first sheet of an .xlsx workbook unless a sheet is named.
+// Workbooks are streamed row by row, never loaded whole.
 public class ExcelUtility {
+
+    private interface SheetScan<T> {
+        T apply(Iterator<CsvRow> rows);
+    }
+
+    public static List<String> readSheetNames(String filePath) {
+        try (XlsxReader reader = XlsxReader.open(Paths.get(filePath))) {
+            return reader.sheetNames();
+        } catch (NoSuchFileException e) {
+            System.err.println("File not found: " + filePath);
+        } catch (IOException e) {
+            System.err.println("Error reading Excel file: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    // Read content from the first sheet
+    public static List<String[]> readContentFromExcel(String filePath) {
+        return readContentFromExcel(filePath, null);
+    }
+
+    public static List<String[]> readContentFromExcel(String filePath, String sheetName) {
+        List<String[]> content = scan(filePath, sheetName, "Error reading Excel file: ", rows -> {
+            List<String[]> result = new ArrayList<>();
+            rows.forEachRemaining(row -> result.add(row.toArray()));
+            return result;
+        });
+        return content != null ? content : new ArrayList<>();
+    }
+
+    // Read a specific row, starting 0 index
+    public static String[] readRowFromExcel(String filePath, int rowIndex) {
+        if (rowIndex < 0) return null;
+        return scan(filePath, null, "Error reading Excel file: ", rows -> {
+            while (rows.hasNext()) {
+                CsvRow row = rows.next();
+                if (row.index() == rowIndex) return row.toArray();
+            }
+            return null;
+        });
+    }
+
+    // Read multiple specific rows, in sheet order
+    public static List<String[]> readRowsFromExcel(String filePath, List<Integer> rowIndices) {
+        TreeSet<Integer> wanted = new TreeSet<>(rowIndices);
+        List<String[]> result = scan(filePath, null, "Error reading Excel file: ", rows -> {
+            List<String[]> found = new ArrayList<>();
+            while (!wanted.isEmpty() && rows.hasNext()) {
+                CsvRow row = rows.next();
+                if (row.index() > wanted.last()) break;
+                if (wanted.contains((int) row.index())) found.add(row.toArray());
+            }
+            return found;
+        });
+        return result != null ? result : new ArrayList<>();
+    }
+
+    public static List<String> readColumnFromExcel(String filePath, String column) {
+        return readColumnFromExcel(filePath, column, 0);
+    }
+
+    public static List<List<String>> readColumnsFromExcel(String filePath, List<String> columns) {
+        return readColumnsFromExcel(filePath, columns, 0);
+    }
+
+    // headerRowNum - 1
+    public static List<String> readColumnFromExcel(String filePath, String column, int headerRow) {
+        List<List<String>> columns = readColumnsFromExcel(filePath, Collections.singletonList(column), headerRow, true);
+        return columns.isEmpty() ? new ArrayList<>() : columns.get(0);
+    }
+
+    // Missing columns read as empty values
+    public static List<List<String>> readColumnsFromExcel(String filePath, List<String> columns, int headerRow) {
+        List<List<String>> result = readColumnsFromExcel(filePath, columns, headerRow, false);
+        return result.isEmpty() ? emptyColumns(columns.size()) : result;
+    }
+
+    public static List<String[]> filterRowsFromExcel(String filePath, String columnName, String columnValue) {
+        return filterRowsFromExcel(filePath, Collections.singletonList(columnName), Collections.singletonList(columnValue));
+    }
+
+    public static List<String[]> filterRowsFromExcel(String filePath, List<String> columnsName, List<String> columnsValue) {
+        List<String[]> result = filter(filePath, columnsName, columnsValue, null, (row, projection) -> row.toArray());
+        return result != null ? result : new ArrayList<>();
+    }
+
+    public static List<List<String>> filterRowsFromExcel(String filePath, String columnName, String columnValue, List<String> columnsToIncludeInRow) {
+        return filterRowsFromExcel(filePath, Collections.singletonList(columnName), Collections.singletonList(columnValue), columnsToIncludeInRow);
+    }
+
+    public static List<List<String>> filterRowsFromExcel(String filePath, List<String> columnNames, List<String> columnValues, List<String> columnsToIncludeInRow) {
+        List<List<String>> result = filter(filePath, columnNames, columnValues, columnsToIncludeInRow, (row, projection) -> project(row, projection));
+        return result != null ? result : new ArrayList<>();
+    }
+
+    public static List<String> filterColumnFromExcel(String filePath, String columnName, String columnValue) {
+        List<List<String>> columns = filterColumnsFromExcel(filePath, Collections.singletonList(columnName), Collections.singletonList(columnValue));
+        return columns.get(0);
+    }
+
+    // Values of the filter columns in the matching rows, one list per column
+    public static List<List<String>> filterColumnsFromExcel(String filePath, List<String> columnsName, List<String> columnsValue) {
+        List<List<String>> rows = filter(filePath, columnsName, columnsValue, columnsName, (row, projection) -> project(row, projection));
+        List<List<String>> columns = emptyColumns(columnsName == null ? 0 : columnsName.size());
+        if (rows != null) {
+            for (List<String> row : rows) {
+                for (int i = 0; i < row.size(); i++) columns.get(i).add(row.get(i));
+            }
+        }
+        return columns;
+    }
+
+    // Write content to a new workbook with one sheet (replaces the file)
+    public static void writeContentToExcel(String filePath, List<String[]> data) {
+        writeContentToExcel(filePath, "Sheet1", data);
+    }
+
+    public static void writeContentToExcel(String filePath, String sheetName, List<String[]> data) {
+        if (data == null || data.isEmpty()) {
+            System.err.println("No data provided to write.");
+            data = Collections.emptyList();
+        }
+        try (XlsxWriter writer = XlsxWriter.create(Paths.get(filePath))) {
+            writer.sheet(sheetName);
+            writer.writeRows(data);
+            writer.commit();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error writing to Excel file: " + e.getMessage());
+            return;
+        }
+        System.out.println("Data written successfully to: " + filePath);
+    }
+
+    // Write several sheets, in map order, to a new workbook (replaces the file)
+    public static void writeSheetsToExcel(String filePath, Map<String, List<String[]>> sheets) {
+        try (XlsxWriter writer = XlsxWriter.create(Paths.get(filePath))) {
+            for (Map.Entry<String, List<String[]>> sheet : sheets.entrySet()) {
+                writer.sheet(sheet.getKey());
+                writer.writeRows(sheet.getValue() != null ? sheet.getValue() : Collections.emptyList());
+            }
+            writer.commit();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error writing to Excel file: " + e.getMessage());
+            return;
+        }
+        System.out.println("Data written successfully to: " + filePath);
+    }
+
+    // Write columns with a header row to a new workbook (replaces the file)
+    public static void writeColumnsToExcel(String filePath, List<String> columns, List<List<String>> data) {
+        writeColumnsToExcel(filePath, "Sheet1", columns, data);
+    }
+
+    public static void writeColumnsToExcel(String filePath, String sheetName, List<String> columns, List<List<String>> data) {
+        try (XlsxWriter writer = XlsxWriter.create(Paths.get(filePath))) {
+            writer.sheet(sheetName);
+            writer.writeRow(columns);
+            int rows = 0;
+            for (List<String> columnData : data) rows = Math.max(rows, columnData.size());
+            for (int i = 0; i < rows; i++) {
+                String[] row = new String[data.size()];
+                for (int c = 0; c < row.length; c++) {
+                    row[c] = i < data.get(c).size() ? data.get(c).get(i) : "";
+                }
+                writer.writeRow(row);
+            }
+            writer.commit();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error writing to Excel file: " + e.getMessage());
+        }
+    }
+
+    private static List<List<String>> readColumnsFromExcel(String filePath, List<String> columns, int headerRow, boolean requireAll) {
+        List<List<String>> result = scan(filePath, null, "Error reading Excel columns: ", rows -> {
+            String[] header = header(rows, headerRow);
+            if (header == null) return null;
+            int[] indices = new int[columns.size()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = indexOfIgnoreCase(header, columns.get(i));
+                if (indices[i] == -1) {
+                    System.err.println("Column not found: " + columns.get(i));
+                    if (requireAll) return null;
+                }
+            }
+            List<List<String>> values = emptyColumns(columns.size());
+            while (rows.hasNext()) {
+                CsvRow row = rows.next();
+                for (int i = 0; i < indices.length; i++) values.get(i).add(row.getOrEmpty(indices[i]));
+            }
+            return values;
+        });
+        return result != null ? result : new ArrayList<>();
+    }
+
+    private interface RowMapper<T> {
+        T map(CsvRow row, int[] projection);
+    }
+
+    // Rows after the header (row 0) whose filter columns equal the values, trimmed and ignoring case
+    private static <T> List<T> filter(String filePath, List<String> columnNames, List<String> columnValues, List<String> include, RowMapper<T> mapper) {
+        if (columnNames == null || columnValues == null || columnNames.size() != columnValues.size()) {
+            System.err.println("Column names and values must be non-null and have the same size.");
+            return null;
+        }
+        return scan(filePath, null, "Error filtering Excel rows: ", rows -> {
+            String[] header = header(rows, 0);
+            if (header == null) return null;
+            int[] filterColumns = new int[columnNames.size()];
+            String[] values = new String[columnNames.size()];
+            for (int i = 0; i < filterColumns.length; i++) {
+                filterColumns[i] = indexOfIgnoreCase(header, columnNames.get(i));
+                if (filterColumns[i] == -1) {
+                    System.err.println("Column not found: " + columnNames.get(i));
+                    return null;
+                }
+                values[i] = columnValues.get(i).trim();
+            }
+            int[] projection = null;
+            if (include != null) {
+                projection = new int[include.size()];
+                for (int i = 0; i < projection.length; i++) {
+                    projection[i] = indexOfIgnoreCase(header, include.get(i));
+                    if (projection[i] == -1) System.err.println("Included column not found: " + include.get(i));
+                }
+            }
+
+            List<T> matches = new ArrayList<>();
+            while (rows.hasNext()) {
+                CsvRow row = rows.next();
+                boolean match = true;
+                for (int i = 0; i < filterColumns.length && match; i++) {
+                    match = filterColumns[i] < row.size() && row.matchesIgnoreCaseTrimmed(filterColumns[i], values[i]);
+                }
+                if (match) matches.add(mapper.map(row, projection));
+            }
+            return matches;
+        });
+    }
+
+    // Opens the sheet, runs the scan and closes everything; null after printing the error on failure
+    private static <T> T scan(String filePath, String sheetName, String errorPrefix, SheetScan<T> scan) {
+        try (XlsxReader reader = XlsxReader.open(Paths.get(filePath));
+             Stream<CsvRow> rows = sheetName == null ? reader.rows() : reader.rows(sheetName)) {
+            return scan.apply(rows.iterator());
+        } catch (NoSuchFileException e) {
+            System.err.println("File not found: " + filePath);
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.err.println(errorPrefix + e.getMessage());
+        }
+        return null;
+    }
+
+    private static String[] header(Iterator<CsvRow> rows, int headerRow) {
+        for (int i = 0; i < headerRow && rows.hasNext(); i++) rows.next();
+        return rows.hasNext() ? rows.next().toArray() : null;
+    }
+
+    private static List<String> project(CsvRow row, int[] projection) {
+        List<String> values = new ArrayList<>(projection.length);
+        for (int column : projection) values.add(row.getOrEmpty(column));
+        return values;
+    }
+
+    private static List<List<String>> emptyColumns(int count) {
+        List<List<String>> columns = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            columns.add(new ArrayList<>());
+        }
+        return columns;
+    }
+
+    // First header cell equal (trimmed, ignoring case) to the trimmed column name, or -1
+    private static int indexOfIgnoreCase(String[] header, String column) {
+        String name = column.trim();
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].trim().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
@@ -7,4 +7,33 @@ public class TestConstants {
     public static final String PASSWORD = PropertyReader.getProperty(filePath,"PASSWORD");
     public static final String BROWSER = PropertyReader.getProperty(filePath,"BROWSER");
     public static final String HEADLESS = PropertyReader.getProperty(filePath,"HEADLESS");
+    public static final String PROFILE = getProperty("PROFILE");
+    public static final String PROFILE_CACHE_DIR = getProperty("PROFILE_CACHE_DIR");
+    public static final String SCREENSHOT_WRITES = getProperty("SCREENSHOT_WRITES");
+    public static final String WAIT_POLLING = getProperty("WAIT_POLLING");
+    public static final String WAIT_POLL_MIN_MS = getProperty("WAIT_POLL_MIN_MS");
+    public static final String WAIT_POLL_MAX_MS = getProperty("WAIT_POLL_MAX_MS");
+    public static final String WAIT_BACKEND = getProperty("WAIT_BACKEND");
+    public static final String WAIT_WARN_PERCENT = getProperty("WAIT_WARN_PERCENT");
+    public static final String WAIT_SLOWEST = getProperty("WAIT_SLOWEST");
+    // Data provider sharding, -DDATA_SHARD_INDEX=1 -DDATA_SHARD_COUNT=4 overrides config.properties
+    public static final String DATA_SHARD_INDEX = getProperty("DATA_SHARD_INDEX");
+    public static final String DATA_SHARD_COUNT = getProperty("DATA_SHARD_COUNT");
+    public static final String DRIVER_REUSE = getProperty("DRIVER_REUSE");
+    public static final String DRIVER_POOL_SIZE = getProperty("DRIVER_POOL_SIZE");
+    public static final String DRIVER_MAX_USES = getProperty("DRIVER_MAX_USES");
+    public static final String DRIVER_MAX_AGE_MINUTES = getProperty("DRIVER_MAX_AGE_MINUTES");
+    public static final String BROWSER_ISOLATION = getProperty("BROWSER_ISOLATION");
+    public static final String DRIVER_MAX_IDLE = getProperty("DRIVER_MAX_IDLE");
+    public static final String DRIVER_PREWARM = getProperty("DRIVER_PREWARM");
+    public static final String DRIVER_OFFLINE = getProperty("DRIVER_OFFLINE");
+    public static final String DRIVER_PATH_CHROME = getProperty("DRIVER_PATH_CHROME");
+    public static final String DRIVER_PATH_FIREFOX = getProperty("DRIVER_PATH_FIREFOX");
+    public static final String DRIVER_PATH_EDGE = getProperty("DRIVER_PATH_EDGE");
+
+    // mvn -D value first, config.properties as the fallback
+    private static String getProperty(String key) {
+        String value = System.getProperty(key);
+        return value != null ? value : PropertyReader.getProperty(filePath, key);
+    }
 }
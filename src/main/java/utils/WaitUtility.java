@@ -4,23 +4,63 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.*;
+import utils.driver.WindowRegistry;
+import utils.wait.AdaptivePolling;
+import utils.wait.DomWait;
+import utils.wait.PageReadiness;
+import utils.wait.WaitCondition;
+import utils.wait.WaitStats;
 import utils.wapper.IWaitUtility;
 
 import java.time.Duration;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public final class WaitUtility implements IWaitUtility {
 
     private static final Logger logger = LogManager.getLogger(WaitUtility.class);
 
-    private static WebDriverWait getWait(WebDriver driver, int timeoutSeconds) {
-        return new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
+    // Polling adapts to how long the condition usually takes, see AdaptivePolling
+    private static WebDriverWait getWait(WebDriver driver, int timeoutSeconds, String condition) {
+        return AdaptivePolling.wait(driver, Duration.ofSeconds(timeoutSeconds), condition);
+    }
+
+    // Records how long the wait took in WaitStats; a timeout counts as missed, other failures are not recorded
+    private static <T> T timed(String condition, String subject, int timeoutSeconds, Supplier<T> wait) {
+        long start = System.nanoTime();
+        try {
+            T result = wait.get();
+            WaitStats.record(condition, subject, start, Duration.ofSeconds(timeoutSeconds), true);
+            return result;
+        } catch (TimeoutException e) {
+            WaitStats.record(condition, subject, start, Duration.ofSeconds(timeoutSeconds), false);
+            throw e;
+        }
+    }
+
+    private static void timed(String condition, String subject, int timeoutSeconds, Runnable wait) {
+        timed(condition, subject, timeoutSeconds, () -> {
+            wait.run();
+            return null;
+        });
+    }
+
+    // With WAIT_BACKEND=observer the page reports when the condition holds, see DomWait; polls otherwise
+    // and for whatever time is left when the page could not finish the wait (e.g. it navigated away)
+    private static void await(WebDriver driver, int timeoutSeconds, String condition, Function<? super WebDriver, ?> polled,
+                              Object target, Object... expected) {
+        Duration timeout = Duration.ofSeconds(timeoutSeconds);
+        long start = System.nanoTime();
+        if (DomWait.supports(driver, condition) && DomWait.until(driver, timeout, condition, target, expected)) return;
+        Duration remaining = timeout.minusNanos(System.nanoTime() - start);
+        AdaptivePolling.wait(driver, remaining.isNegative() ? Duration.ZERO : remaining, condition).until(polled);
     }
 
     public static void waitForVisibility(WebDriver driver, WebElement element, int timeoutSeconds, String elementName) {
         logger.info("Waiting for visibility of element: {}", elementName);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.visibilityOf(element));
+            timed("visibility", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "visibility", ExpectedConditions.visibilityOf(element), element));
             logger.info("Element '{}' is visible.", elementName);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for visibility of element '{}': {}", elementName, e.getMessage());
@@ -34,7 +74,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForClickability(WebDriver driver, WebElement element, int timeoutSeconds, String elementName) {
         logger.info("Waiting for element to be clickable: {}", elementName);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.elementToBeClickable(element));
+            timed("clickability", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "clickability", ExpectedConditions.elementToBeClickable(element), element));
             logger.info("Element '{}' is clickable.", elementName);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for clickability of element '{}': {}", elementName, e.getMessage());
@@ -48,7 +88,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForPresence(WebDriver driver, By locator, int timeoutSeconds, String elementName) {
         logger.info("Waiting for presence of element: {}", elementName);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.presenceOfElementLocated(locator));
+            timed("presence", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "presence", ExpectedConditions.presenceOfElementLocated(locator), locator));
             logger.info("Element '{}' is present.", elementName);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for presence of element '{}': {}", elementName, e.getMessage());
@@ -62,7 +102,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForInvisibility(WebDriver driver, WebElement element, int timeoutSeconds, String elementName) {
         logger.info("Waiting for invisibility of element: {}", elementName);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.invisibilityOf(element));
+            timed("invisibility", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "invisibility", ExpectedConditions.invisibilityOf(element), element));
             logger.info("Element '{}' is invisible.", elementName);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for invisibility of element '{}': {}", elementName, e.getMessage());
@@ -76,7 +116,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForTextToBePresent(WebDriver driver, WebElement element, String text, int timeoutSeconds, String elementName) {
         logger.info("Waiting for text '{}' to be present in element: {}", text, elementName);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.textToBePresentInElement(element, text));
+            timed("textToBePresent", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "textToBePresent", ExpectedConditions.textToBePresentInElement(element, text), element, text));
             logger.info("Text '{}' is present in element '{}'.", text, elementName);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for text '{}' in element '{}': {}", text, elementName, e.getMessage());
@@ -90,7 +130,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForTextToBeAbsent(WebDriver driver, WebElement element, String text, int timeoutSeconds, String elementName) {
         logger.info("Waiting for text '{}' to be absent in element: {}", text, elementName);
         try {
-            getWait(driver, timeoutSeconds).until(driver1 -> !element.getText().contains(text));
+            timed("textToBeAbsent", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "textToBeAbsent", driver1 -> !element.getText().contains(text), element, text));
             logger.info("Text '{}' is absent in element '{}'.", text, elementName);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for absence of text '{}' in element '{}': {}", text, elementName, e.getMessage());
@@ -104,7 +144,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForAttributeToBe(WebDriver driver, WebElement element, String attribute, String value, int timeoutSeconds, String elementName) {
         logger.info("Waiting for element '{}' attribute '{}' to be '{}'", elementName, attribute, value);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.attributeToBe(element, attribute, value));
+            timed("attributeToBe", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "attributeToBe", ExpectedConditions.attributeToBe(element, attribute, value), element, attribute, value));
             logger.info("Element '{}' attribute '{}' is '{}'.", elementName, attribute, value);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for attribute '{}' to be '{}' in element '{}': {}", attribute, value, elementName, e.getMessage());
@@ -118,7 +158,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForAttributeContains(WebDriver driver, WebElement element, String attribute, String value, int timeoutSeconds, String elementName) {
         logger.info("Waiting for element '{}' attribute '{}' to contain '{}'", elementName, attribute, value);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.attributeContains(element, attribute, value));
+            timed("attributeContains", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "attributeContains", ExpectedConditions.attributeContains(element, attribute, value), element, attribute, value));
             logger.info("Element '{}' attribute '{}' contains '{}'.", elementName, attribute, value);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for attribute '{}' to contain '{}' in element '{}': {}", attribute, value, elementName, e.getMessage());
@@ -132,7 +172,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForFrameToBeAvailableAndSwitchToIt(WebDriver driver, By frameLocator, int timeoutSeconds, String frameName) {
         logger.info("Waiting for frame '{}' to be available and switching to it", frameName);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameLocator));
+            timed("frameToBeAvailableAndSwitchToIt", frameName, timeoutSeconds, () -> getWait(driver, timeoutSeconds, "frameToBeAvailableAndSwitchToIt").until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameLocator)));
             logger.info("Switched to frame '{}'.", frameName);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for frame '{}': {}", frameName, e.getMessage());
@@ -146,7 +186,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForNumberOfElementsToBe(WebDriver driver, By locator, int number, int timeoutSeconds, String elementName) {
         logger.info("Waiting for number of elements '{}' to be {}", elementName, number);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.numberOfElementsToBe(locator, number));
+            timed("numberOfElementsToBe", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "numberOfElementsToBe", ExpectedConditions.numberOfElementsToBe(locator, number), locator, number));
             logger.info("Number of elements '{}' is {}", elementName, number);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for number of elements '{}' to be {}: {}", elementName, number, e.getMessage());
@@ -160,7 +200,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForNumberOfElementsToBeMoreThan(WebDriver driver, By locator, int number, int timeoutSeconds, String elementName) {
         logger.info("Waiting for number of elements '{}' to be more than {}", elementName, number);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.numberOfElementsToBeMoreThan(locator, number));
+            timed("numberOfElementsToBeMoreThan", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "numberOfElementsToBeMoreThan", ExpectedConditions.numberOfElementsToBeMoreThan(locator, number), locator, number));
             logger.info("Number of elements '{}' is more than {}", elementName, number);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for number of elements '{}' to be more than {}: {}", elementName, number, e.getMessage());
@@ -174,7 +214,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForNumberOfElementsToBeLessThan(WebDriver driver, By locator, int number, int timeoutSeconds, String elementName) {
         logger.info("Waiting for number of elements '{}' to be less than {}", elementName, number);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.numberOfElementsToBeLessThan(locator, number));
+            timed("numberOfElementsToBeLessThan", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "numberOfElementsToBeLessThan", ExpectedConditions.numberOfElementsToBeLessThan(locator, number), locator, number));
             logger.info("Number of elements '{}' is less than {}", elementName, number);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for number of elements '{}' to be less than {}: {}", elementName, number, e.getMessage());
@@ -185,10 +225,64 @@ public final class WaitUtility implements IWaitUtility {
         }
     }
 
+    // Returns the label of the condition that fired, e.g. anyOf(allOf(spinnerGone, tableVisible).named("results"), errorShown.named("error"))
+    public static String waitForAnyOf(WebDriver driver, int timeoutSeconds, WaitCondition... conditions) {
+        return waitFor(driver, timeoutSeconds, WaitCondition.anyOf(conditions));
+    }
+
+    public static void waitForAllOf(WebDriver driver, int timeoutSeconds, WaitCondition... conditions) {
+        waitFor(driver, timeoutSeconds, WaitCondition.allOf(conditions));
+    }
+
+    public static String waitFor(WebDriver driver, int timeoutSeconds, WaitCondition condition) {
+        logger.info("Waiting for {}", condition);
+        try {
+            String fired = timed("composite", condition.label(), timeoutSeconds, () -> DomWait.until(driver, Duration.ofSeconds(timeoutSeconds), condition));
+            logger.info("Condition '{}' is met.", fired);
+            return fired;
+        } catch (TimeoutException e) {
+            logger.error("Timeout waiting for {}: {}", condition, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            logger.error("Unexpected error waiting for {}: {}", condition, e.getMessage());
+            throw e;
+        }
+    }
+
+    // No request in flight for quietMs; see PageReadiness for what is tracked per browser
+    public static void waitForNetworkIdle(WebDriver driver, int quietMs, int timeoutSeconds) {
+        logger.info("Waiting for network to be idle for {} ms", quietMs);
+        try {
+            timed("networkIdle", null, timeoutSeconds, () -> PageReadiness.waitForNetworkIdle(driver, Duration.ofMillis(quietMs), Duration.ofSeconds(timeoutSeconds)));
+            logger.info("Network is idle");
+        } catch (TimeoutException e) {
+            logger.error("Timeout waiting for network to be idle: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            logger.error("Unexpected error waiting for network to be idle: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    // Network idle, page loaded, no DOM changes or animations for quietMs and Angular/jQuery idle
+    public static void waitForPageStable(WebDriver driver, int quietMs, int timeoutSeconds) {
+        logger.info("Waiting for page to be stable for {} ms", quietMs);
+        try {
+            timed("pageStable", null, timeoutSeconds, () -> PageReadiness.waitForPageStable(driver, Duration.ofMillis(quietMs), Duration.ofSeconds(timeoutSeconds)));
+            logger.info("Page is stable");
+        } catch (TimeoutException e) {
+            logger.error("Timeout waiting for page to be stable: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            logger.error("Unexpected error waiting for page to be stable: {}", e.getMessage());
+            throw e;
+        }
+    }
+
     public static void waitForUrlToBe(WebDriver driver, String url, int timeoutSeconds) {
         logger.info("Waiting for URL to be '{}'", url);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.urlToBe(url));
+            timed("urlToBe", url, timeoutSeconds, () -> getWait(driver, timeoutSeconds, "urlToBe").until(ExpectedConditions.urlToBe(url)));
             logger.info("URL is '{}'", url);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for URL to be '{}': {}", url, e.getMessage());
@@ -202,7 +296,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForUrlContains(WebDriver driver, String fraction, int timeoutSeconds) {
         logger.info("Waiting for URL to contain '{}'", fraction);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.urlContains(fraction));
+            timed("urlContains", fraction, timeoutSeconds, () -> getWait(driver, timeoutSeconds, "urlContains").until(ExpectedConditions.urlContains(fraction)));
             logger.info("URL contains '{}'", fraction);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for URL to contain '{}': {}", fraction, e.getMessage());
@@ -216,7 +310,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForTitleToBe(WebDriver driver, String title, int timeoutSeconds) {
         logger.info("Waiting for page title to be '{}'", title);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.titleIs(title));
+            timed("titleToBe", title, timeoutSeconds, () -> getWait(driver, timeoutSeconds, "titleToBe").until(ExpectedConditions.titleIs(title)));
             logger.info("Page title is '{}'", title);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for page title to be '{}': {}", title, e.getMessage());
@@ -230,7 +324,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForTitleContains(WebDriver driver, String titleFragment, int timeoutSeconds) {
         logger.info("Waiting for page title to contain '{}'", titleFragment);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.titleContains(titleFragment));
+            timed("titleContains", titleFragment, timeoutSeconds, () -> getWait(driver, timeoutSeconds, "titleContains").until(ExpectedConditions.titleContains(titleFragment)));
             logger.info("Page title contains '{}'", titleFragment);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for page title to contain '{}': {}", titleFragment, e.getMessage());
@@ -244,7 +338,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForAlertPresence(WebDriver driver, int timeoutSeconds) {
         logger.info("Waiting for alert to be present");
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.alertIsPresent());
+            timed("alertPresence", null, timeoutSeconds, () -> getWait(driver, timeoutSeconds, "alertPresence").until(ExpectedConditions.alertIsPresent()));
             logger.info("Alert is present");
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for alert presence: {}", e.getMessage());
@@ -258,7 +352,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForElementToBeSelected(WebDriver driver, WebElement element, int timeoutSeconds, String elementName) {
         logger.info("Waiting for element '{}' to be selected", elementName);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.elementToBeSelected(element));
+            timed("elementToBeSelected", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "elementToBeSelected", ExpectedConditions.elementToBeSelected(element), element));
             logger.info("Element '{}' is selected", elementName);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for element '{}' to be selected: {}", elementName, e.getMessage());
@@ -272,7 +366,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForElementToBeDeselected(WebDriver driver, WebElement element, int timeoutSeconds, String elementName) {
         logger.info("Waiting for element '{}' to be deselected", elementName);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.elementSelectionStateToBe(element, false));
+            timed("elementToBeDeselected", elementName, timeoutSeconds, () -> await(driver, timeoutSeconds, "elementToBeDeselected", ExpectedConditions.elementSelectionStateToBe(element, false), element));
             logger.info("Element '{}' is deselected", elementName);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for element '{}' to be deselected: {}", elementName, e.getMessage());
@@ -286,7 +380,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForNumberOfWindowsToBe(WebDriver driver, int expectedNumberOfWindows, int timeoutSeconds) {
         logger.info("Waiting for number of windows to be {}", expectedNumberOfWindows);
         try {
-            getWait(driver, timeoutSeconds).until(ExpectedConditions.numberOfWindowsToBe(expectedNumberOfWindows));
+            timed("numberOfWindowsToBe", null, timeoutSeconds, () -> getWait(driver, timeoutSeconds, "numberOfWindowsToBe").until(driver1 -> WindowRegistry.handles(driver1).size() == expectedNumberOfWindows));
             logger.info("Number of windows is {}", expectedNumberOfWindows);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for number of windows to be {}: {}", expectedNumberOfWindows, e.getMessage());
@@ -300,36 +394,16 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForWindowToBeAvailableAndSwitchToIt(WebDriver driver, String windowHandleOrTitle, int timeoutSeconds) {
         logger.info("Waiting for window '{}' to be available and switching to it", windowHandleOrTitle);
         try {
-            WebDriverWait wait = getWait(driver, timeoutSeconds);
-
-            // Try switch by handle first
-            boolean switched = false;
-            try {
-                wait.until(driver1 -> {
-                    Set<String> handles = driver1.getWindowHandles();
-                    if (handles.contains(windowHandleOrTitle)) {
-                        driver1.switchTo().window(windowHandleOrTitle);
-                        return true;
-                    }
-                    return false;
-                });
-                switched = true;
-            } catch (TimeoutException ignored) {
-                // Try switch by title fallback below
-            }
-
-            if (!switched) {
-                wait.until(driver1 -> {
-                    for (String handle : driver1.getWindowHandles()) {
-                        driver1.switchTo().window(handle);
-                        if (driver1.getTitle().equals(windowHandleOrTitle)) {
+            // A handle switches directly, a title is looked up without visiting every window
+            timed("windowToBeAvailableAndSwitchToIt", windowHandleOrTitle, timeoutSeconds,
+                    () -> getWait(driver, timeoutSeconds, "windowToBeAvailableAndSwitchToIt").until(driver1 -> {
+                        Set<String> handles = WindowRegistry.handles(driver1);
+                        if (handles.contains(windowHandleOrTitle)) {
+                            driver1.switchTo().window(windowHandleOrTitle);
                             return true;
                         }
-                    }
-                    return false;
-                });
-            }
-
+                        return WindowRegistry.switchToTitle(driver1, handles, windowHandleOrTitle);
+                    }));
             logger.info("Switched to window '{}'", windowHandleOrTitle);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for window '{}': {}", windowHandleOrTitle, e.getMessage());
@@ -343,7 +417,7 @@ public final class WaitUtility implements IWaitUtility {
     public static void waitForWindowToClose(WebDriver driver, String windowHandle, int timeoutSeconds) {
         logger.info("Waiting for window '{}' to close", windowHandle);
         try {
-            getWait(driver, timeoutSeconds).until(driver1 -> !driver1.getWindowHandles().contains(windowHandle));
+            timed("windowToClose", windowHandle, timeoutSeconds, () -> getWait(driver, timeoutSeconds, "windowToClose").until(driver1 -> !driver1.getWindowHandles().contains(windowHandle)));
             logger.info("Window '{}' is closed", windowHandle);
         } catch (TimeoutException e) {
             logger.error("Timeout waiting for window '{}' to close: {}", windowHandle, e.getMessage());
@@ -0,0 +1,88 @@
+package utils.concurrent;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import utils.TestConstants;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes files off the test thread when SCREENSHOT_WRITES=background, so a test only
+ * waits for what needs its browser. Tasks run on virtual threads with the caller's log
+ * context bound. Otherwise the work runs inline on the calling thread, as before.
+ */
+public final class VirtualThreads {
+    private static final Logger logger = LogManager.getLogger(VirtualThreads.class);
+
+    public static final boolean ENABLED = "background".equalsIgnoreCase(
+            TestConstants.SCREENSHOT_WRITES != null ? TestConstants.SCREENSHOT_WRITES.trim() : "inline");
+
+    private static final ExecutorService executor = ENABLED ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    // Background tasks not finished yet
+    private static final Set<CompletableFuture<Void>> pending = ConcurrentHashMap.newKeySet();
+
+    private VirtualThreads() {
+    }
+
+    // Fire and forget; failures are logged. awaitBackground() waits for everything started here
+    public static void background(String description, Runnable task) {
+        if (!ENABLED) {
+            run(description, task);
+            return;
+        }
+        Runnable bound = bound(() -> run(description, task));
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        pending.add(future);
+        executor.execute(() -> {
+            try {
+                bound.run();
+            } finally {
+                pending.remove(future);
+                future.complete(null);
+            }
+        });
+    }
+
+    // E.g. before the report is flushed, so every screenshot it links to is on disk
+    public static void awaitBackground(Duration timeout) {
+        if (!ENABLED) return;
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Background tasks still running after {}: {}", timeout, pending.size());
+        }
+    }
+
+    private static void run(String description, Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error("Background task failed: {}", description, e);
+        }
+    }
+
+    // Captures the caller's log context now, binds it in whichever thread runs the task
+    private static Runnable bound(Runnable task) {
+        Map<String, String> context = ThreadContext.getImmutableContext();
+        return () -> {
+            ThreadContext.putAll(context);
+            try {
+                task.run();
+            } finally {
+                ThreadContext.clearMap();
+            }
+        };
+    }
+}
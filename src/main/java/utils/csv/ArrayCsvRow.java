@@ -0,0 +1,32 @@
+package utils.csv;
+
+final class ArrayCsvRow implements CsvRow {
+    private final long index;
+    private final String[] values;
+
+    ArrayCsvRow(long index, String[] values) {
+        this.index = index;
+        this.values = values;
+    }
+
+    @Override
+    public long index() {
+        return index;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public String get(int column) {
+        return values[column];
+    }
+
+    // The parser hands over a fresh array per record, so no defensive copy is needed
+    @Override
+    public String[] toArray() {
+        return values;
+    }
+}
@@ -0,0 +1,262 @@
+package utils.csv;
+
+import com.opencsv.CSVWriter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Long-lived appender shared by every thread writing to the same CSV file. Callers put
+ * their rows on a lock-free queue; one writer thread per file drains it, writes each
+ * caller's rows as one contiguous block through a single open channel, and commits the
+ * whole group with one flush (and fsync, when {@link #FSYNC} is set) before completing
+ * the callers' futures. Rows from concurrent callers are therefore never interleaved, and
+ * under load many callers share the cost of each commit.
+ *
+ * A group is committed once {@link #FLUSH_ROWS} rows are pending or the queue runs dry,
+ * after lingering up to {@link #FLUSH_INTERVAL_MS} for more rows when that is set. An
+ * appender with nothing to write for {@link #IDLE_MS} closes its file and thread; the next
+ * append opens a fresh one. Appends wait while {@link CsvUpdate} rewrites the file, so
+ * they always land in the file that replaced it.
+ */
+public final class CsvAppender implements Closeable {
+    public static final long FLUSH_INTERVAL_MS = Long.getLong("csv.append.flushIntervalMs", 0);
+    public static final int FLUSH_ROWS = Integer.getInteger("csv.append.flushRows", 4096);
+    // Force each commit to disk; by default rows survive a JVM crash but not a power loss
+    public static final boolean FSYNC = Boolean.getBoolean("csv.append.fsync");
+    public static final long IDLE_MS = Long.getLong("csv.append.idleMs", 30_000);
+
+    private static final Map<Path, CsvAppender> APPENDERS = new ConcurrentHashMap<>();
+    // Held to open, feed or close a file's appender, and by CsvUpdate across a rewrite
+    private static final CsvLocks<ReentrantLock> LOCKS = new CsvLocks<>(ReentrantLock::new);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(CsvAppender::closeAll, "csv-appender-shutdown"));
+    }
+
+    private final Path path;
+    private final Queue<Batch> queue = new ConcurrentLinkedQueue<>();
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    private CsvAppender(Path path) {
+        this.path = path;
+        writerThread = new Thread(this::run, "csv-appender-" + path.getFileName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public static CsvAppender forFile(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        ReentrantLock lock = lock(key);
+        lock.lock();
+        try {
+            return APPENDERS.computeIfAbsent(key, CsvAppender::new);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Queues the rows as one block; the future completes once they are committed
+    public static CompletableFuture<Void> append(Path file, List<String[]> rows) {
+        Batch batch = new Batch(rows);
+        Path key = file.toAbsolutePath().normalize();
+        ReentrantLock lock = lock(key);
+        lock.lock();
+        try {
+            while (!forFile(key).offer(batch)) {
+                // Lost a race with a direct close(); the next forFile() opens a fresh appender
+            }
+        } finally {
+            lock.unlock();
+        }
+        return batch.done;
+    }
+
+    // Appends the rows and returns once they are committed
+    public static void appendAndWait(Path file, List<String[]> rows) throws IOException {
+        try {
+            append(file, rows).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while appending to " + file, e);
+        }
+    }
+
+    // Commits pending rows and releases the file, e.g. before it is rewritten or deleted
+    public static void closeFile(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        ReentrantLock lock = lock(key);
+        lock.lock();
+        try {
+            CsvAppender appender = APPENDERS.remove(key);
+            if (appender != null) appender.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Runs the action with the file's appender closed and appends waiting, e.g. to delete or overwrite it
+    public static void whileClosed(Path file, FileAction action) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        ReentrantLock lock = lock(key);
+        lock.lock();
+        try {
+            closeFile(key);
+            action.run(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public interface FileAction {
+        void run(Path file) throws IOException;
+    }
+
+    public static void closeAll() {
+        for (Path file : new ArrayList<>(APPENDERS.keySet())) {
+            closeFile(file);
+        }
+    }
+
+    // key must be the absolute, normalized path
+    static ReentrantLock lock(Path key) {
+        return LOCKS.of(key);
+    }
+
+    private boolean offer(Batch batch) {
+        if (closed) return false;
+        queue.offer(batch);
+        // The writer only exits once it has seen closed with an empty queue, so if the batch
+        // can still be taken back here it was never going to be written
+        if (closed && queue.remove(batch)) return false;
+        LockSupport.unpark(writerThread);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        APPENDERS.remove(path, this);
+        closed = true;
+        LockSupport.unpark(writerThread);
+        boolean interrupted = false;
+        while (writerThread.isAlive() && Thread.currentThread() != writerThread) {
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private void run() {
+        FileChannel channel = null;
+        CSVWriter writer = null;
+        List<Batch> group = new ArrayList<>();
+        long linger = TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS);
+        long idle = TimeUnit.MILLISECONDS.toNanos(IDLE_MS);
+        long lastWrite = System.nanoTime();
+        while (true) {
+            Batch first = queue.poll();
+            if (first == null) {
+                if (closed) break;
+                long wait = lastWrite + idle - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                } else {
+                    retireIfIdle();
+                }
+                continue;
+            }
+            group.add(first);
+            int rows = first.rows.size();
+            long deadline = System.nanoTime() + linger;
+            while (rows < FLUSH_ROWS) {
+                Batch next = queue.poll();
+                if (next == null) {
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0 || closed) break;
+                    LockSupport.parkNanos(this, wait);
+                    continue;
+                }
+                group.add(next);
+                rows += next.rows.size();
+            }
+
+            try {
+                if (channel == null) {
+                    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    writer = new CSVWriter(new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8), 64 * 1024));
+                }
+                for (Batch batch : group) writer.writeAll(batch.rows);
+                writer.flush();
+                if (writer.checkError()) {
+                    IOException error = writer.getException();
+                    writer.resetError();
+                    throw error;
+                }
+                if (FSYNC) channel.force(false);
+                for (Batch batch : group) batch.done.complete(null);
+            } catch (IOException | RuntimeException e) {
+                for (Batch batch : group) batch.done.completeExceptionally(e);
+            }
+            group.clear();
+            lastWrite = System.nanoTime();
+        }
+
+        try {
+            if (writer != null) writer.close();
+        } catch (IOException e) {
+            System.err.println("Error closing CSV appender for " + path + ": " + e.getMessage());
+        }
+    }
+
+    // Offers happen under the file's lock, so with the lock held an empty queue stays empty.
+    // Only tried: whoever holds the lock may be joining this thread in closeFile()
+    private void retireIfIdle() {
+        ReentrantLock lock = lock(path);
+        if (!lock.tryLock()) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+            return;
+        }
+        try {
+            if (queue.isEmpty()) {
+                APPENDERS.remove(path, this);
+                closed = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Batch {
+        final List<String[]> rows;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Batch(List<String[]> rows) {
+            this.rows = new ArrayList<>(rows);
+        }
+    }
+}
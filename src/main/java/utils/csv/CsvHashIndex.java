@@ -0,0 +1,97 @@
+package utils.csv;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Case-insensitive hash index over one or more columns of a CSV file (header at row 0).
+ * Keys are the trimmed cell values, matched the way the CSVFileUtil filters match them,
+ * so an indexed filter returns exactly the rows a full scan would.
+ * Create through {@link CsvIndexes#hashIndex(String, String...)}.
+ */
+public final class CsvHashIndex {
+    private static final int[] NONE = new int[0];
+
+    private final CsvIndexes.Target target;
+    private final int[] columns;
+    private final Map<String, int[]> rowsByKey;
+
+    private CsvHashIndex(CsvIndexes.Target target, int[] columns, Map<String, int[]> rowsByKey) {
+        this.target = target;
+        this.columns = columns;
+        this.rowsByKey = rowsByKey;
+    }
+
+    static CsvHashIndex build(CsvIndexes.Target target, int[] columns) throws IOException {
+        Map<String, int[]> rowsByKey = new HashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        try (CsvSource.Records records = target.records()) {
+            String[] values = new String[columns.length];
+            while (records.hasNext()) {
+                CsvRow row = records.next();
+                if (!read(row, columns, values)) continue;
+                String key = key(values);
+                int[] rows = rowsByKey.get(key);
+                int count = counts.getOrDefault(key, 0);
+                if (rows == null) {
+                    rows = new int[4];
+                } else if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count] = Math.toIntExact(row.index());
+                rowsByKey.put(key, rows);
+                counts.put(key, count + 1);
+            }
+        }
+        rowsByKey.replaceAll((key, rows) -> Arrays.copyOf(rows, counts.get(key)));
+        return new CsvHashIndex(target, columns.clone(), rowsByKey);
+    }
+
+    private static boolean read(CsvRow row, int[] columns, String[] values) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] >= row.size()) return false;
+            values[i] = row.get(columns[i]).trim();
+        }
+        return true;
+    }
+
+    int[] columns() {
+        return columns;
+    }
+
+    CsvIndexes.Target target() {
+        return target;
+    }
+
+    // File record numbers (ascending) whose indexed columns equal the given values, ignoring case
+    public int[] rowsMatching(String... values) {
+        if (values.length != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " values but got " + values.length);
+        }
+        return rowsByKey.getOrDefault(key(values), NONE).clone();
+    }
+
+    public List<String[]> lookup(String... values) throws IOException {
+        return CsvIndexes.toArrays(target.fetch(rowsMatching(values)));
+    }
+
+    public List<CsvRow> lookupRows(String... values) throws IOException {
+        return target.fetch(rowsMatching(values));
+    }
+
+    // Per-character fold matching String.equalsIgnoreCase; \0 keeps composite keys apart
+    static String key(String[] values) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) key.append('\0');
+            String value = values[i];
+            for (int c = 0; c < value.length(); c++) {
+                key.append(Character.toLowerCase(Character.toUpperCase(value.charAt(c))));
+            }
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,190 @@
+package utils.csv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in secondary indexes for CSV files. Once an index is created for a file, the
+ * CSVFileUtil filters on the same columns answer from it instead of rescanning.
+ * Indexes remember the file size + modification time they were built from and are
+ * rebuilt transparently on first use after the file changes.
+ */
+public final class CsvIndexes {
+    private static final Map<Path, List<CsvHashIndex>> HASH = new ConcurrentHashMap<>();
+    private static final Map<Path, List<CsvSortedIndex>> SORTED = new ConcurrentHashMap<>();
+    // Taken to rebuild a stale index, so concurrent callers rebuild it once
+    private static final CsvLocks<Object> LOCKS = CsvLocks.monitors();
+
+    private CsvIndexes() {
+    }
+
+    // Builds (or returns the existing) case-insensitive hash index on the given header columns
+    public static synchronized CsvHashIndex hashIndex(String filePath, String... columns) throws IOException {
+        Target target = Target.of(Paths.get(filePath));
+        int[] indices = target.columnIndices(columns);
+        CsvHashIndex existing = findHash(target.path, indices);
+        if (existing != null) return existing;
+        CsvHashIndex index = CsvHashIndex.build(target, indices);
+        HASH.computeIfAbsent(target.path, k -> new CopyOnWriteArrayList<>()).add(index);
+        return index;
+    }
+
+    public static synchronized CsvSortedIndex sortedIndex(String filePath, String column) throws IOException {
+        Target target = Target.of(Paths.get(filePath));
+        int index = target.columnIndices(column)[0];
+        CsvSortedIndex existing = findSorted(target.path, index);
+        if (existing != null) return existing;
+        CsvSortedIndex sorted = CsvSortedIndex.build(target, index);
+        SORTED.computeIfAbsent(target.path, k -> new CopyOnWriteArrayList<>()).add(sorted);
+        return sorted;
+    }
+
+    public static void dropIndexes(String filePath) {
+        Path key = Paths.get(filePath).toAbsolutePath().normalize();
+        HASH.remove(key);
+        SORTED.remove(key);
+    }
+
+    // Called by writers: size and modification time alone miss a same-size rewrite within one mtime tick.
+    // The indexes stay registered and are rebuilt on next use
+    public static void invalidate(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        List<CsvHashIndex> hash = HASH.get(key);
+        if (hash != null) hash.forEach(index -> index.target().invalidate());
+        List<CsvSortedIndex> sorted = SORTED.get(key);
+        if (sorted != null) sorted.forEach(index -> index.target().invalidate());
+    }
+
+    // Registered hash index on exactly these columns, rebuilt first if the file has changed
+    public static CsvHashIndex findHash(Path file, int[] columns) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        List<CsvHashIndex> indexes = HASH.get(key);
+        if (indexes == null) return null;
+        CsvHashIndex index = matchHash(indexes, columns);
+        if (index == null || index.target().isCurrent()) return index;
+        synchronized (LOCKS.of(key)) {
+            index = matchHash(indexes, columns);
+            if (index == null || index.target().isCurrent()) return index;
+            CsvHashIndex rebuilt = CsvHashIndex.build(Target.of(key), columns);
+            indexes.set(indexes.indexOf(index), rebuilt);
+            return rebuilt;
+        }
+    }
+
+    public static CsvSortedIndex findSorted(Path file, int column) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        List<CsvSortedIndex> indexes = SORTED.get(key);
+        if (indexes == null) return null;
+        CsvSortedIndex index = matchSorted(indexes, column);
+        if (index == null || index.target().isCurrent()) return index;
+        synchronized (LOCKS.of(key)) {
+            index = matchSorted(indexes, column);
+            if (index == null || index.target().isCurrent()) return index;
+            CsvSortedIndex rebuilt = CsvSortedIndex.build(Target.of(key), column);
+            indexes.set(indexes.indexOf(index), rebuilt);
+            return rebuilt;
+        }
+    }
+
+    private static CsvHashIndex matchHash(List<CsvHashIndex> indexes, int[] columns) {
+        for (CsvHashIndex index : indexes) {
+            if (Arrays.equals(index.columns(), columns)) return index;
+        }
+        return null;
+    }
+
+    private static CsvSortedIndex matchSorted(List<CsvSortedIndex> indexes, int column) {
+        for (CsvSortedIndex index : indexes) {
+            if (index.column() == column) return index;
+        }
+        return null;
+    }
+
+    static List<String[]> toArrays(List<CsvRow> rows) {
+        List<String[]> result = new ArrayList<>(rows.size());
+        for (CsvRow row : rows) result.add(row.toArray());
+        return result;
+    }
+
+    // The file version an index was built from, and how to get rows back out of it
+    static final class Target {
+        final Path path;
+        final long size;
+        final long modified;
+        private volatile boolean invalidated;
+
+        private Target(Path path, long size, long modified) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+
+        static Target of(Path file) throws IOException {
+            Path key = file.toAbsolutePath().normalize();
+            BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+            return new Target(key, attrs.size(), attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS));
+        }
+
+        void invalidate() {
+            invalidated = true;
+        }
+
+        boolean isCurrent() throws IOException {
+            if (invalidated) return false;
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            return attrs.size() == size && attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS) == modified;
+        }
+
+        CsvSource.Records records() throws IOException {
+            return CsvTableCache.records(path, 0);
+        }
+
+        // Header lookup the same way filterRowsFromCSV resolves a column: trimmed, ignoring case
+        int[] columnIndices(String... columns) throws IOException {
+            String[] header;
+            try (CsvSource.Records records = records()) {
+                header = records.header();
+            }
+            int[] indices = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                indices[i] = -1;
+                for (int h = 0; header != null && h < header.length; h++) {
+                    if (header[h].trim().equalsIgnoreCase(columns[i].trim())) {
+                        indices[i] = h;
+                        break;
+                    }
+                }
+                if (indices[i] == -1) {
+                    throw new IllegalArgumentException("Column not found: " + columns[i]);
+                }
+            }
+            return indices;
+        }
+
+        // Rows by file record number: from the shared table when cached, otherwise one seek each
+        List<CsvRow> fetch(int[] rowNumbers) throws IOException {
+            List<CsvRow> rows = new ArrayList<>(rowNumbers.length);
+            if (rowNumbers.length == 0) return rows;
+            CsvTable table = CsvTableCache.get(path);
+            if (table != null) {
+                for (int row : rowNumbers) rows.add(table.row(row));
+                return rows;
+            }
+            List<Integer> wanted = new ArrayList<>(rowNumbers.length);
+            for (int row : rowNumbers) wanted.add(row);
+            List<String[]> values = CsvRowIndex.forFile(path).readRows(wanted);
+            for (int i = 0; i < values.size(); i++) rows.add(new ArrayCsvRow(rowNumbers[i], values.get(i)));
+            return rows;
+        }
+    }
+}
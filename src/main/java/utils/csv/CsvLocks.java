@@ -0,0 +1,31 @@
+package utils.csv;
+
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * A fixed set of locks shared out by path, so per-file locking needs no map that grows
+ * with every file ever touched. Two files may share a lock now and then, which only
+ * means they take turns.
+ */
+final class CsvLocks<L> {
+    private static final int STRIPES = 64;
+
+    private final Object[] stripes = new Object[STRIPES];
+
+    // Plain monitors for synchronized blocks
+    static CsvLocks<Object> monitors() {
+        return new CsvLocks<>(Object::new);
+    }
+
+    CsvLocks(Supplier<L> factory) {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = factory.get();
+    }
+
+    // key must be the absolute, normalized path
+    @SuppressWarnings("unchecked")
+    L of(Path key) {
+        int hash = key.hashCode();
+        return (L) stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
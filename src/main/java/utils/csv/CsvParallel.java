@@ -0,0 +1,114 @@
+package utils.csv;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Parallel parsing of large CSV files. The file is cut into chunks of about
+ * {@link #CHUNK_BYTES} at record boundaries taken from its {@link CsvRowIndex} (so a
+ * newline inside a quoted field never splits a record), each chunk is tokenised on a
+ * shared {@link ForkJoinPool} through its own memory-mapped reader, and the per-chunk
+ * results are joined back in file order.
+ *
+ * CsvQuery switches to this path on its own for files of {@link #THRESHOLD_BYTES} or
+ * more, or when asked with {@link CsvQuery#parallel()}.
+ */
+public final class CsvParallel {
+    public static final long CHUNK_BYTES = Long.getLong("csv.parallel.chunkBytes", 8L * 1024 * 1024);
+    public static final long THRESHOLD_BYTES = Long.getLong("csv.parallel.threshold", 128L * 1024 * 1024);
+    public static final int PARALLELISM = Integer.getInteger("csv.parallelism", Runtime.getRuntime().availableProcessors());
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM);
+
+    private CsvParallel() {
+    }
+
+    // Every record of the file, including the header, in file order
+    public static List<String[]> readAll(Path file) throws IOException {
+        return map(file, 0, CsvRow::toArray);
+    }
+
+    /**
+     * Applies the function to every record from firstRecord on and returns the non-null
+     * results in file order. The row handed to the function is only valid during the call
+     * and the function runs on several threads at once.
+     */
+    static <T> List<T> map(Path file, int firstRecord, Function<CsvRow, T> function) throws IOException {
+        CsvRowIndex index = CsvRowIndex.forFile(file);
+        int[] bounds = chunks(index, firstRecord);
+        if (bounds.length < 2) return new ArrayList<>();
+        try {
+            return POOL.invoke(new ChunkTask<>(file, index, bounds, 0, bounds.length - 1, function));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Record numbers where chunks start, ending with rowCount
+    private static int[] chunks(CsvRowIndex index, int firstRecord) {
+        int rowCount = index.rowCount();
+        if (firstRecord >= rowCount) return new int[0];
+        List<Integer> bounds = new ArrayList<>();
+        int record = firstRecord;
+        bounds.add(record);
+        while (record < rowCount) {
+            int next = index.recordAtOrAfter(index.offset(record) + CHUNK_BYTES);
+            record = Math.max(next, record + 1);
+            bounds.add(record);
+        }
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static final class ChunkTask<T> extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks are never serialized, RecursiveTask just happens to be Serializable
+        private final transient Path file;
+        private final transient CsvRowIndex index;
+        private final int[] bounds;
+        private final int from;
+        private final int to;
+        private final transient Function<CsvRow, T> function;
+
+        ChunkTask(Path file, CsvRowIndex index, int[] bounds, int from, int to, Function<CsvRow, T> function) {
+            this.file = file;
+            this.index = index;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.function = function;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (to - from == 1) return parse(bounds[from], bounds[to]);
+            int middle = (from + to) >>> 1;
+            ChunkTask<T> left = new ChunkTask<>(file, index, bounds, from, middle, function);
+            ChunkTask<T> right = new ChunkTask<>(file, index, bounds, middle, to, function);
+            left.fork();
+            List<T> tail = right.compute();
+            List<T> head = left.join();
+            head.addAll(tail);
+            return head;
+        }
+
+        private List<T> parse(int firstRecord, int endRecord) {
+            List<T> results = new ArrayList<>();
+            try (MappedCsvReader reader = new MappedCsvReader(file, index.offset(firstRecord), index.offset(endRecord), firstRecord)) {
+                while (reader.advance()) {
+                    T result = function.apply(reader.current());
+                    if (result != null) results.add(result);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return results;
+        }
+    }
+}
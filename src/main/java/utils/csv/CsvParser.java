@@ -0,0 +1,138 @@
+package utils.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pull parser that turns a character stream into CSV records one at a time.
+ * Memory use is bounded by the read buffer plus the current record.
+ *
+ * Format: ',' separated, '"' quoted with "" as an escaped quote, records ended by
+ * \n, \r\n or \r. Text after a closing quote is kept as-is, an empty line is a
+ * record with one empty field and a leading UTF-8 BOM is dropped.
+ */
+final class CsvParser implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean started;
+
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> fields = new ArrayList<>();
+    // Columns to materialise, null for all; the others are scanned past and read as ""
+    private boolean[] keep;
+
+    CsvParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    void keep(boolean[] columns) {
+        this.keep = columns;
+    }
+
+    // Returns the next record, or null once the input is exhausted
+    String[] next() throws IOException {
+        if (!started) {
+            started = true;
+            if (ensure() && buf[pos] == '\uFEFF') pos++;
+        }
+        if (!ensure()) return null;
+
+        fields.clear();
+        while (true) {
+            field.setLength(0);
+            int column = fields.size();
+            boolean skip = keep != null && (column >= keep.length || !keep[column]);
+            if (buf[pos] == '"') {
+                pos++;
+                readQuoted(skip);
+            }
+            readUnquoted(skip);
+            fields.add(skip ? "" : field.toString());
+
+            if (!ensure()) break;
+            char c = buf[pos++];
+            if (c == ',') {
+                if (!ensure()) {
+                    // Trailing separator at end of input still opens an (empty) last field
+                    fields.add("");
+                    break;
+                }
+                continue;
+            }
+            if (c == '\r' && ensure() && buf[pos] == '\n') pos++;
+            break;
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    private void readQuoted(boolean skip) throws IOException {
+        while (ensure()) {
+            int start = pos;
+            while (pos < limit && buf[pos] != '"') pos++;
+            if (!skip) field.append(buf, start, pos - start);
+            if (pos == limit) continue;
+            pos++;
+            if (ensure() && buf[pos] == '"') {
+                if (!skip) field.append('"');
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    // Copies characters up to the next separator or line break, leaving it unread
+    private void readUnquoted(boolean skip) throws IOException {
+        while (ensure()) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buf[pos];
+                if (c == ',' || c == '\n' || c == '\r') break;
+                pos++;
+            }
+            if (!skip) field.append(buf, start, pos - start);
+            if (pos < limit) return;
+        }
+    }
+
+    private boolean ensure() throws IOException {
+        if (pos < limit) return true;
+        if (eof) return false;
+        int n;
+        do {
+            n = reader.read(buf, 0, buf.length);
+        } while (n == 0);
+        if (n < 0) {
+            eof = true;
+            pos = limit = 0;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    // Parses a single record held entirely in memory, e.g. one located through CsvRowIndex
+    static String[] parseLine(CharSequence line) {
+        try (CsvParser parser = new CsvParser(new StringReader(line.toString()))) {
+            String[] record = parser.next();
+            return record != null ? record : new String[]{""};
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
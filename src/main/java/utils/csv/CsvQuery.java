@@ -0,0 +1,482 @@
+package utils.csv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Streaming query over a CSV file with predicate and projection pushdown:
+ * <pre>
+ * CsvQuery.from(path).where(col("Well").eq("A1")).and(col("Value").gt(3.2)).select("Well", "Value").toLists();
+ * </pre>
+ * Conditions are checked in the order given and stop at the first miss, only the cells
+ * they reference are read, and only selected columns are materialised. Equality and
+ * range conditions are answered from a registered {@link CsvIndexes} index when one
+ * exists. Columns are matched by trimmed header name ignoring case, or by position.
+ * Large files are scanned in parallel chunks through {@link CsvParallel}.
+ *
+ * Files small enough for {@link CsvTableCache} are parsed in full once and then queried
+ * from the cached table. Larger files are read through the memory-mapped reader, or,
+ * below {@link CsvSource#MAPPED_THRESHOLD_BYTES}, by a parser that only builds the
+ * selected and filtered columns.
+ */
+public final class CsvQuery {
+    private static final String[] NO_VALUES = new String[0];
+
+    private final Path path;
+    private int headerRow;
+    private final List<Condition> conditions = new ArrayList<>();
+    private Column[] selection;
+    private long limit = Long.MAX_VALUE;
+    private boolean parallel;
+
+    private CsvQuery(Path path) {
+        this.path = path;
+    }
+
+    public static CsvQuery from(String filePath) {
+        return new CsvQuery(Paths.get(filePath));
+    }
+
+    public static CsvQuery from(Path path) {
+        return new CsvQuery(path);
+    }
+
+    public static Column col(String name) {
+        return new Column(name, -1);
+    }
+
+    // By position; a negative index selects an always-empty column
+    public static Column col(int index) {
+        return new Column(null, index);
+    }
+
+    public CsvQuery headerRow(int headerRow) {
+        this.headerRow = headerRow;
+        return this;
+    }
+
+    public CsvQuery where(Condition condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    public CsvQuery and(Condition condition) {
+        return where(condition);
+    }
+
+    public CsvQuery select(String... columns) {
+        selection = Arrays.stream(columns).map(CsvQuery::col).toArray(Column[]::new);
+        return this;
+    }
+
+    public CsvQuery select(int... columns) {
+        selection = Arrays.stream(columns).mapToObj(CsvQuery::col).toArray(Column[]::new);
+        return this;
+    }
+
+    public CsvQuery limit(long limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    // Parse on all cores even when the file is below CsvParallel.THRESHOLD_BYTES
+    public CsvQuery parallel() {
+        this.parallel = true;
+        return this;
+    }
+
+    // Matching rows as arrays: the selected columns, or the whole record when nothing was selected
+    public List<String[]> toArrays() throws IOException {
+        List<String[]> result = new ArrayList<>();
+        execute(this::projector, result::add, true, selection);
+        return result;
+    }
+
+    public List<List<String>> toLists() throws IOException {
+        List<List<String>> result = new ArrayList<>();
+        execute(this::projector, values -> result.add(Arrays.asList(values)), true, selection);
+        return result;
+    }
+
+    // Column-oriented result, one list per selected column
+    public List<List<String>> toColumns() throws IOException {
+        if (selection == null) throw new IllegalStateException("toColumns() needs select(...)");
+        List<List<String>> columns = new ArrayList<>();
+        for (int i = 0; i < selection.length; i++) columns.add(new ArrayList<>());
+        execute(this::projector, values -> {
+            for (int i = 0; i < values.length; i++) columns.get(i).add(values[i]);
+        }, true, selection);
+        return columns;
+    }
+
+    // Matching rows mapped onto a record, components matched to header names; select(...) is ignored
+    public <R extends Record> List<R> toRecords(Class<R> type) throws IOException {
+        List<R> result = new ArrayList<>();
+        execute(header -> RecordMapper.bind(type, header)::map, result::add, true, null);
+        return result;
+    }
+
+    // The single selected column parsed in place, without a String per cell on the mapped
+    // reader; blank cells read as 0 (NaN for doubles), missing cells likewise
+    public int[] toInts() throws IOException {
+        int[] column = new int[1];
+        int[][] values = {new int[64]};
+        int[] count = {0};
+        execute(header -> singleColumn(header, column), row -> {
+            if (count[0] == values[0].length) values[0] = Arrays.copyOf(values[0], count[0] * 2);
+            values[0][count[0]++] = column[0] >= 0 && column[0] < row.size() ? row.getInt(column[0]) : 0;
+        }, false, selection);
+        return Arrays.copyOf(values[0], count[0]);
+    }
+
+    public long[] toLongs() throws IOException {
+        int[] column = new int[1];
+        long[][] values = {new long[64]};
+        int[] count = {0};
+        execute(header -> singleColumn(header, column), row -> {
+            if (count[0] == values[0].length) values[0] = Arrays.copyOf(values[0], count[0] * 2);
+            values[0][count[0]++] = column[0] >= 0 && column[0] < row.size() ? row.getLong(column[0]) : 0;
+        }, false, selection);
+        return Arrays.copyOf(values[0], count[0]);
+    }
+
+    public double[] toDoubles() throws IOException {
+        int[] column = new int[1];
+        double[][] values = {new double[64]};
+        int[] count = {0};
+        execute(header -> singleColumn(header, column), row -> {
+            if (count[0] == values[0].length) values[0] = Arrays.copyOf(values[0], count[0] * 2);
+            values[0][count[0]++] = column[0] >= 0 && column[0] < row.size() ? row.getDouble(column[0]) : Double.NaN;
+        }, false, selection);
+        return Arrays.copyOf(values[0], count[0]);
+    }
+
+    public long count() throws IOException {
+        long[] count = {0};
+        execute(header -> row -> NO_VALUES, values -> count[0]++, true, new Column[0]);
+        return count[0];
+    }
+
+    /**
+     * Runs the query: the binder turns the header into a per-row extractor, which is applied
+     * to each match and its result handed to the sink in file order. On the parallel path
+     * extractors run on several threads and must not keep the row; pass parallel = false
+     * when the sink itself needs the row. reads are the columns the extractor looks at besides
+     * the conditions, null when it needs the whole record.
+     */
+    private <T> void execute(Function<String[], Function<CsvRow, T>> binder, Consumer<T> sink, boolean parallelizable,
+                             Column[] reads) throws IOException {
+        if (limit <= 0) return;
+        if (parallelizable && (parallel || Files.size(path) >= CsvParallel.THRESHOLD_BYTES) && executeParallel(binder, sink)) return;
+        try (CsvSource.Records records = CsvTableCache.records(path, headerRow, header -> columnsRead(header, reads))) {
+            String[] header = records.header();
+            if (header == null) return;
+
+            List<Predicate<CsvRow>> predicates = bind(header);
+            Function<CsvRow, T> extractor = binder.apply(header);
+
+            Iterable<CsvRow> candidates = indexedCandidates(header);
+            if (candidates == null) candidates = () -> records;
+
+            long emitted = 0;
+            for (CsvRow row : candidates) {
+                if (matches(row, predicates)) {
+                    sink.accept(extractor.apply(row));
+                    if (++emitted >= limit) break;
+                }
+            }
+        }
+    }
+
+    // Full scan split across CsvParallel; returns false to leave the query to a registered index
+    private <T> boolean executeParallel(Function<String[], Function<CsvRow, T>> binder, Consumer<T> sink) throws IOException {
+        String[] header = CsvRowIndex.forFile(path).readRow(headerRow);
+        if (header == null) return true;
+        if (indexedCandidates(header) != null) return false;
+
+        List<Predicate<CsvRow>> predicates = bind(header);
+        Function<CsvRow, T> extractor = binder.apply(header);
+        List<T> matched = CsvParallel.map(path, headerRow + 1, row -> matches(row, predicates) ? extractor.apply(row) : null);
+        long emitted = 0;
+        for (T match : matched) {
+            sink.accept(match);
+            if (++emitted >= limit) break;
+        }
+        return true;
+    }
+
+    // Resolves the one selected column into column[0] and hands the row itself to the sink
+    private Function<CsvRow, CsvRow> singleColumn(String[] header, int[] column) {
+        if (selection == null || selection.length != 1) {
+            throw new IllegalStateException("Numeric columns need exactly one select(...) column");
+        }
+        column[0] = selection[0].resolve(header);
+        return Function.identity();
+    }
+
+    private Function<CsvRow, String[]> projector(String[] header) {
+        int[] projection = projection(header);
+        return row -> project(row, projection);
+    }
+
+    // Mask of the columns the query touches, or null when the whole record is needed
+    private boolean[] columnsRead(String[] header, Column[] reads) {
+        if (reads == null) return null;
+        boolean[] columns = new boolean[header.length];
+        for (Column column : reads) column.mark(header, columns);
+        for (Condition condition : conditions) condition.mark(header, columns);
+        return columns;
+    }
+
+    private List<Predicate<CsvRow>> bind(String[] header) {
+        List<Predicate<CsvRow>> predicates = new ArrayList<>(conditions.size());
+        for (Condition condition : conditions) predicates.add(condition.bind(header));
+        return predicates;
+    }
+
+    private int[] projection(String[] header) {
+        if (selection == null) return null;
+        int[] projection = new int[selection.length];
+        for (int i = 0; i < selection.length; i++) projection[i] = selection[i].resolve(header);
+        return projection;
+    }
+
+    private static boolean matches(CsvRow row, List<Predicate<CsvRow>> predicates) {
+        for (Predicate<CsvRow> predicate : predicates) {
+            if (!predicate.test(row)) return false;
+        }
+        return true;
+    }
+
+    // Narrows the scan through a registered index: all equality columns together, then any
+    // single equality column, then a numeric range. Indexes are built on header row 0 only.
+    private Iterable<CsvRow> indexedCandidates(String[] header) throws IOException {
+        if (headerRow != 0 || conditions.isEmpty()) return null;
+        List<Equals> equalities = new ArrayList<>();
+        for (Condition condition : conditions) {
+            if (condition instanceof Equals equals) equalities.add(equals);
+        }
+        if (equalities.size() > 1) {
+            int[] columns = new int[equalities.size()];
+            String[] values = new String[equalities.size()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = equalities.get(i).column.resolve(header);
+                values[i] = equalities.get(i).value;
+            }
+            CsvHashIndex index = CsvIndexes.findHash(path, columns);
+            if (index != null) return index.lookupRows(values);
+        }
+        for (Equals equals : equalities) {
+            CsvHashIndex index = CsvIndexes.findHash(path, new int[]{equals.column.resolve(header)});
+            if (index != null) return index.lookupRows(equals.value);
+        }
+        for (Condition condition : conditions) {
+            if (condition instanceof Range range) {
+                CsvSortedIndex index = CsvIndexes.findSorted(path, range.column.resolve(header));
+                if (index != null) {
+                    return index.target().fetch(index.rowsBetween(range.from, range.fromInclusive, range.to, range.toInclusive));
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String[] project(CsvRow row, int[] projection) {
+        if (projection == null) return row.toArray();
+        String[] values = new String[projection.length];
+        for (int i = 0; i < projection.length; i++) values[i] = row.getOrEmpty(projection[i]);
+        return values;
+    }
+
+    public static final class Column {
+        private final String name;
+        private final int index;
+
+        private Column(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+
+        int resolve(String[] header) {
+            if (name == null) return index;
+            String wanted = name.trim();
+            for (int i = 0; i < header.length; i++) {
+                if (header[i].trim().equalsIgnoreCase(wanted)) return i;
+            }
+            throw new IllegalArgumentException("Column not found: " + name);
+        }
+
+        void mark(String[] header, boolean[] columns) {
+            int index = resolve(header);
+            if (index >= 0 && index < columns.length) columns[index] = true;
+        }
+
+        // Trimmed cell equals value, ignoring case
+        public Condition eq(String value) {
+            return new Equals(this, value);
+        }
+
+        public Condition ne(String value) {
+            return eq(value).negate();
+        }
+
+        public Condition in(String... values) {
+            if (values.length == 0) throw new IllegalArgumentException("in() needs at least one value");
+            Condition any = eq(values[0]);
+            for (int i = 1; i < values.length; i++) any = any.or(eq(values[i]));
+            return any;
+        }
+
+        public Condition contains(String fragment) {
+            String wanted = fragment.toLowerCase(Locale.ROOT);
+            return new Cell(this, value -> value.toLowerCase(Locale.ROOT).contains(wanted));
+        }
+
+        public Condition isEmpty() {
+            return new Cell(this, String::isEmpty);
+        }
+
+        public Condition gt(double value) {
+            return new Range(this, value, false, Double.POSITIVE_INFINITY, true);
+        }
+
+        public Condition ge(double value) {
+            return new Range(this, value, true, Double.POSITIVE_INFINITY, true);
+        }
+
+        public Condition lt(double value) {
+            return new Range(this, Double.NEGATIVE_INFINITY, true, value, false);
+        }
+
+        public Condition le(double value) {
+            return new Range(this, Double.NEGATIVE_INFINITY, true, value, true);
+        }
+
+        // Inclusive on both ends
+        public Condition between(double from, double to) {
+            return new Range(this, from, true, to, true);
+        }
+    }
+
+    public abstract static class Condition {
+        abstract Predicate<CsvRow> bind(String[] header);
+
+        // Flags the columns the condition reads
+        abstract void mark(String[] header, boolean[] columns);
+
+        public Condition or(Condition other) {
+            Condition self = this;
+            return new Condition() {
+                @Override
+                Predicate<CsvRow> bind(String[] header) {
+                    return self.bind(header).or(other.bind(header));
+                }
+
+                @Override
+                void mark(String[] header, boolean[] columns) {
+                    self.mark(header, columns);
+                    other.mark(header, columns);
+                }
+            };
+        }
+
+        public Condition negate() {
+            Condition self = this;
+            return new Condition() {
+                @Override
+                Predicate<CsvRow> bind(String[] header) {
+                    return self.bind(header).negate();
+                }
+
+                @Override
+                void mark(String[] header, boolean[] columns) {
+                    self.mark(header, columns);
+                }
+            };
+        }
+    }
+
+    private static final class Equals extends Condition {
+        private final Column column;
+        private final String value;
+
+        Equals(Column column, String value) {
+            this.column = column;
+            this.value = value;
+        }
+
+        @Override
+        Predicate<CsvRow> bind(String[] header) {
+            int index = column.resolve(header);
+            return row -> index >= 0 && index < row.size() && row.matchesIgnoreCaseTrimmed(index, value);
+        }
+
+        @Override
+        void mark(String[] header, boolean[] columns) {
+            column.mark(header, columns);
+        }
+    }
+
+    private static final class Range extends Condition {
+        private final Column column;
+        private final double from;
+        private final boolean fromInclusive;
+        private final double to;
+        private final boolean toInclusive;
+
+        Range(Column column, double from, boolean fromInclusive, double to, boolean toInclusive) {
+            this.column = column;
+            this.from = from;
+            this.fromInclusive = fromInclusive;
+            this.to = to;
+            this.toInclusive = toInclusive;
+        }
+
+        @Override
+        Predicate<CsvRow> bind(String[] header) {
+            int index = column.resolve(header);
+            return row -> {
+                if (index < 0 || index >= row.size()) return false;
+                Double number = CsvSortedIndex.parseNumber(row.get(index).trim());
+                if (number == null) return false;
+                double v = number;
+                return (fromInclusive ? v >= from : v > from) && (toInclusive ? v <= to : v < to);
+            };
+        }
+
+        @Override
+        void mark(String[] header, boolean[] columns) {
+            column.mark(header, columns);
+        }
+    }
+
+    private static final class Cell extends Condition {
+        private final Column column;
+        private final Predicate<String> test;
+
+        Cell(Column column, Predicate<String> test) {
+            this.column = column;
+            this.test = test;
+        }
+
+        @Override
+        Predicate<CsvRow> bind(String[] header) {
+            int index = column.resolve(header);
+            return row -> index >= 0 && index < row.size() && test.test(row.get(index).trim());
+        }
+
+        @Override
+        void mark(String[] header, boolean[] columns) {
+            column.mark(header, columns);
+        }
+    }
+}
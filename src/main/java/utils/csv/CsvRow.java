@@ -0,0 +1,43 @@
+package utils.csv;
+
+/**
+ * A single CSV record. {@link #index()} is the 0-based record number in the file,
+ * counting every record (preamble and header rows included).
+ */
+public interface CsvRow {
+
+    long index();
+
+    int size();
+
+    String get(int column);
+
+    String[] toArray();
+
+    // Missing trailing fields are treated as empty, same as the old CSVFileUtil loops did
+    default String getOrEmpty(int column) {
+        return column >= 0 && column < size() ? get(column) : "";
+    }
+
+    // expected.equalsIgnoreCase(get(column).trim()); readers may answer it without building the String
+    default boolean matchesIgnoreCaseTrimmed(int column, String expected) {
+        return expected.equalsIgnoreCase(get(column).trim());
+    }
+
+    // Numeric cells, trimmed; blank reads as 0 (NaN for doubles) and anything else that isn't
+    // a number throws NumberFormatException. Readers may parse straight from their buffer.
+    default int getInt(int column) {
+        String value = get(column).trim();
+        return value.isEmpty() ? 0 : Integer.parseInt(value);
+    }
+
+    default long getLong(int column) {
+        String value = get(column).trim();
+        return value.isEmpty() ? 0 : Long.parseLong(value);
+    }
+
+    default double getDouble(int column) {
+        String value = get(column).trim();
+        return value.isEmpty() ? Double.NaN : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,291 @@
+package utils.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Byte offset of every record in a CSV file, so a row can be read with one seek
+ * instead of a scan from the top. The index is built by a quote-aware byte scan,
+ * kept in memory and persisted next to the file as ".&lt;name&gt;.rowidx". Both copies
+ * are keyed by file size + modification time and rebuilt when either changes. In-memory
+ * indexes are evicted least-recently-used once their offsets pass {@link #MAX_BYTES};
+ * an evicted index is read back from its sidecar.
+ */
+public final class CsvRowIndex {
+    private static final int MAGIC = 0x43535649; // "CSVI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4;
+
+    public static final long MAX_BYTES = Long.getLong("csv.rowIndex.maxBytes", 64L * 1024 * 1024);
+
+    private static final LinkedHashMap<Path, CsvRowIndex> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedBytes;
+    private static final CsvLocks<Object> LOCKS = CsvLocks.monitors();
+
+    private final Path path;
+    private final long size;
+    private final long modified;
+    // offsets[i] is where record i starts, offsets[rowCount] is the end of the data
+    private final long[] offsets;
+
+    private CsvRowIndex(Path path, long size, long modified, long[] offsets) {
+        this.path = path;
+        this.size = size;
+        this.modified = modified;
+        this.offsets = offsets;
+    }
+
+    public static CsvRowIndex forFile(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS);
+
+        CsvRowIndex cached = cached(key);
+        if (cached != null && cached.matches(size, modified)) return cached;
+
+        synchronized (LOCKS.of(key)) {
+            cached = cached(key);
+            if (cached != null && cached.matches(size, modified)) return cached;
+
+            CsvRowIndex index = readSidecar(key, size, modified);
+            if (index == null) {
+                index = new CsvRowIndex(key, size, modified, scan(key));
+                index.writeSidecar();
+            }
+            cache(key, index);
+            return index;
+        }
+    }
+
+    private static CsvRowIndex cached(Path key) {
+        synchronized (CACHE) {
+            return CACHE.get(key);
+        }
+    }
+
+    private static void cache(Path key, CsvRowIndex index) {
+        synchronized (CACHE) {
+            remove(key);
+            CACHE.put(key, index);
+            cachedBytes += index.bytes();
+            Iterator<CsvRowIndex> eldest = CACHE.values().iterator();
+            while (cachedBytes > MAX_BYTES && eldest.hasNext()) {
+                CsvRowIndex evicted = eldest.next();
+                if (evicted == index) break;
+                cachedBytes -= evicted.bytes();
+                eldest.remove();
+            }
+        }
+    }
+
+    // Caller holds the CACHE monitor
+    private static void remove(Path key) {
+        CsvRowIndex removed = CACHE.remove(key);
+        if (removed != null) cachedBytes -= removed.bytes();
+    }
+
+    private long bytes() {
+        return (long) offsets.length * Long.BYTES;
+    }
+
+    // Called by writers so a rewrite within the same mtime tick can never serve stale offsets
+    public static void invalidate(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        synchronized (CACHE) {
+            remove(key);
+        }
+        try {
+            Files.deleteIfExists(sidecarOf(key));
+        } catch (IOException ignored) {
+        }
+    }
+
+    public int rowCount() {
+        return offsets.length - 1;
+    }
+
+    // Reads and parses a single record, or returns null when the index is out of range
+    public String[] readRow(int rowIndex) throws IOException {
+        if (rowIndex < 0 || rowIndex >= rowCount()) return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readRow(channel, rowIndex);
+        }
+    }
+
+    // Rows come back in the iteration order of rowIndices; out-of-range indices are skipped
+    public List<String[]> readRows(Collection<Integer> rowIndices) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (int rowIndex : rowIndices) {
+                if (rowIndex >= 0 && rowIndex < rowCount()) {
+                    rows.add(readRow(channel, rowIndex));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private String[] readRow(FileChannel channel, int rowIndex) throws IOException {
+        long start = offsets[rowIndex];
+        int length = Math.toIntExact(offsets[rowIndex + 1] - start);
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, start + bytes.position()) < 0) break;
+        }
+        bytes.flip();
+        return CsvParser.parseLine(StandardCharsets.UTF_8.decode(bytes));
+    }
+
+    // Byte offset where a record starts; offset(rowCount()) is the end of the data
+    long offset(int rowIndex) {
+        return offsets[rowIndex];
+    }
+
+    // First record starting at or after the byte offset
+    int recordAtOrAfter(long byteOffset) {
+        int found = Arrays.binarySearch(offsets, byteOffset);
+        return found >= 0 ? found : Math.min(-found - 1, rowCount());
+    }
+
+    private boolean matches(long size, long modified) {
+        return this.size == size && this.modified == modified;
+    }
+
+    // Record boundaries follow CsvParser: a quote only opens a quoted field at the start of a field
+    private static long[] scan(Path file) throws IOException {
+        final int startField = 0, unquoted = 1, quoted = 2, quoteInQuoted = 3;
+        long[] offsets = new long[1024];
+        int count = 0;
+        byte[] buf = new byte[256 * 1024];
+
+        try (InputStream in = Files.newInputStream(file)) {
+            long pos = 0;
+            boolean inRecord = false;
+            boolean skipLf = false;
+            int state = startField;
+            int n;
+            boolean first = true;
+            while ((n = in.read(buf)) > 0) {
+                int i = 0;
+                if (first) {
+                    first = false;
+                    if (n >= 3 && (buf[0] & 0xFF) == 0xEF && (buf[1] & 0xFF) == 0xBB && (buf[2] & 0xFF) == 0xBF) {
+                        i = 3;
+                    }
+                }
+                for (; i < n; i++) {
+                    byte b = buf[i];
+                    if (skipLf) {
+                        skipLf = false;
+                        if (b == '\n') continue;
+                    }
+                    if (!inRecord) {
+                        inRecord = true;
+                        if (count + 1 >= offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                        offsets[count++] = pos + i;
+                    }
+                    switch (state) {
+                        case quoted:
+                            if (b == '"') state = quoteInQuoted;
+                            continue;
+                        case quoteInQuoted:
+                            if (b == '"') {
+                                state = quoted;
+                                continue;
+                            }
+                            break;
+                        case startField:
+                            if (b == '"') {
+                                state = quoted;
+                                continue;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    if (b == ',') {
+                        state = startField;
+                    } else if (b == '\n' || b == '\r') {
+                        state = startField;
+                        inRecord = false;
+                        skipLf = b == '\r';
+                    } else {
+                        state = unquoted;
+                    }
+                }
+                pos += n;
+            }
+            offsets[count] = pos;
+        }
+        return Arrays.copyOf(offsets, count + 1);
+    }
+
+    private static Path sidecarOf(Path file) {
+        return file.resolveSibling("." + file.getFileName() + ".rowidx");
+    }
+
+    private static CsvRowIndex readSidecar(Path file, long size, long modified) {
+        Path sidecar = sidecarOf(file);
+        if (!Files.isRegularFile(sidecar)) return null;
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) > 0) { }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) return null;
+            if (header.getLong() != size || header.getLong() != modified) return null;
+            int entries = header.getInt();
+            ByteBuffer body = ByteBuffer.allocate(Math.multiplyExact(entries, Long.BYTES));
+            while (body.hasRemaining() && channel.read(body) > 0) { }
+            if (body.hasRemaining()) return null;
+            body.flip();
+            long[] offsets = new long[entries];
+            body.asLongBuffer().get(offsets);
+            return new CsvRowIndex(file, size, modified, offsets);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Best effort: a read-only data folder just means the index lives in memory only
+    private void writeSidecar() {
+        Path sidecar = sidecarOf(path);
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(path.getParent(), ".rowidx", ".tmp");
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + offsets.length * Long.BYTES);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(modified).putInt(offsets.length);
+            LongBuffer longs = buffer.asLongBuffer();
+            longs.put(offsets);
+            buffer.position(buffer.position() + offsets.length * Long.BYTES);
+            buffer.flip();
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            Files.move(tmp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package utils.csv;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Sorted index over one column of a CSV file (header at row 0) for range predicates.
+ * Cells that parse as numbers are ordered numerically; all other cells are ordered
+ * case-insensitively as text. Results are file record numbers in ascending order.
+ * Create through {@link CsvIndexes#sortedIndex(String, String)}.
+ */
+public final class CsvSortedIndex {
+    private final CsvIndexes.Target target;
+    private final int column;
+    private final double[] numbers;
+    private final int[] numberRows;
+    private final String[] texts;
+    private final int[] textRows;
+
+    private CsvSortedIndex(CsvIndexes.Target target, int column, double[] numbers, int[] numberRows, String[] texts, int[] textRows) {
+        this.target = target;
+        this.column = column;
+        this.numbers = numbers;
+        this.numberRows = numberRows;
+        this.texts = texts;
+        this.textRows = textRows;
+    }
+
+    static CsvSortedIndex build(CsvIndexes.Target target, int column) throws IOException {
+        List<double[]> numeric = new ArrayList<>();
+        List<Object[]> textual = new ArrayList<>();
+        try (CsvSource.Records records = target.records()) {
+            while (records.hasNext()) {
+                CsvRow row = records.next();
+                if (column >= row.size()) continue;
+                String value = row.get(column).trim();
+                int rowNumber = Math.toIntExact(row.index());
+                Double number = parseNumber(value);
+                if (number != null) {
+                    numeric.add(new double[]{number, rowNumber});
+                } else {
+                    textual.add(new Object[]{value.toLowerCase(Locale.ROOT), rowNumber});
+                }
+            }
+        }
+        numeric.sort(Comparator.comparingDouble((double[] e) -> e[0]).thenComparingDouble(e -> e[1]));
+        textual.sort(Comparator.comparing((Object[] e) -> (String) e[0]).thenComparingInt(e -> (Integer) e[1]));
+
+        double[] numbers = new double[numeric.size()];
+        int[] numberRows = new int[numeric.size()];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = numeric.get(i)[0];
+            numberRows[i] = (int) numeric.get(i)[1];
+        }
+        String[] texts = new String[textual.size()];
+        int[] textRows = new int[textual.size()];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = (String) textual.get(i)[0];
+            textRows[i] = (Integer) textual.get(i)[1];
+        }
+        return new CsvSortedIndex(target, column, numbers, numberRows, texts, textRows);
+    }
+
+    static Double parseNumber(String value) {
+        if (value.isEmpty()) return null;
+        char first = value.charAt(0);
+        if (!(first >= '0' && first <= '9') && first != '-' && first != '+' && first != '.') return null;
+        try {
+            double number = Double.parseDouble(value);
+            return Double.isNaN(number) ? null : number;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    int column() {
+        return column;
+    }
+
+    CsvIndexes.Target target() {
+        return target;
+    }
+
+    // Numeric cells between the bounds; use +/-Infinity for an open end
+    public int[] rowsBetween(double from, boolean fromInclusive, double to, boolean toInclusive) {
+        int start = fromInclusive ? lowerBound(numbers, from) : upperBound(numbers, from);
+        int end = toInclusive ? upperBound(numbers, to) : lowerBound(numbers, to);
+        return sortedRows(numberRows, start, end);
+    }
+
+    // Text cells between the bounds, compared ignoring case; null means an open end
+    public int[] rowsBetween(String from, boolean fromInclusive, String to, boolean toInclusive) {
+        int start = from == null ? 0 : fromInclusive ? lowerBound(texts, from.toLowerCase(Locale.ROOT)) : upperBound(texts, from.toLowerCase(Locale.ROOT));
+        int end = to == null ? texts.length : toInclusive ? upperBound(texts, to.toLowerCase(Locale.ROOT)) : lowerBound(texts, to.toLowerCase(Locale.ROOT));
+        return sortedRows(textRows, start, end);
+    }
+
+    public List<String[]> rows(int[] rowNumbers) throws IOException {
+        return CsvIndexes.toArrays(target.fetch(rowNumbers));
+    }
+
+    private static int[] sortedRows(int[] rows, int start, int end) {
+        if (start >= end) return new int[0];
+        int[] result = Arrays.copyOfRange(rows, start, end);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static int lowerBound(double[] keys, double key) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int upperBound(double[] keys, double key) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] <= key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(key) < 0) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int upperBound(String[] keys, String key) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(key) <= 0) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,201 @@
+package utils.csv;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy, single-pass view over a CSV file. Every call to {@link #rows()} opens the
+ * file once and parses records on demand, so heap use does not grow with file size.
+ * Streams must be closed (try-with-resources) to release the file handle.
+ */
+public final class CsvSource {
+    // Size from which records() switches to the memory-mapped reader, overridable with -Dcsv.mapped.threshold
+    public static final long MAPPED_THRESHOLD_BYTES = Long.getLong("csv.mapped.threshold", 64L * 1024 * 1024);
+
+    private final Path path;
+
+    private CsvSource(Path path) {
+        this.path = path;
+    }
+
+    public static CsvSource of(String filePath) {
+        return new CsvSource(Paths.get(filePath));
+    }
+
+    public static CsvSource of(Path path) {
+        return new CsvSource(path);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    // Opens the file eagerly so a missing file surfaces as FileNotFoundException here,
+    // while parse errors later on are thrown as UncheckedIOException from the stream
+    public Stream<CsvRow> rows() throws IOException {
+        return rows(new CsvParser(new InputStreamReader(new FileInputStream(path.toFile()), StandardCharsets.UTF_8)));
+    }
+
+    private static Stream<CsvRow> rows(CsvParser parser) {
+        RowSpliterator spliterator = new RowSpliterator(parser);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Rows after the header row, together with the header itself. Files of at least
+     * {@link #MAPPED_THRESHOLD_BYTES} are read through a memory-mapped, zero-copy reader,
+     * in which case each row is a view that is only valid until the next call to next().
+     */
+    public Records records(int headerRow) throws IOException {
+        if (Files.size(path) >= MAPPED_THRESHOLD_BYTES) {
+            MappedCsvReader reader = new MappedCsvReader(path);
+            return Records.start(headerRow, new MappedIterator(reader), reader);
+        }
+        Stream<CsvRow> rows = rows();
+        return Records.start(headerRow, rows.iterator(), rows::close);
+    }
+
+    /**
+     * Like {@link #records(int)}, but below the mapped threshold only the columns flagged by
+     * columns(header) are built as Strings; the rest are skipped by the parser and read as "".
+     * A null mask keeps every column. Mapped rows are lazy views already and ignore the mask.
+     */
+    public Records records(int headerRow, Function<String[], boolean[]> columns) throws IOException {
+        if (Files.size(path) >= MAPPED_THRESHOLD_BYTES) return records(headerRow);
+        CsvParser parser = new CsvParser(new InputStreamReader(new FileInputStream(path.toFile()), StandardCharsets.UTF_8));
+        Stream<CsvRow> rows = rows(parser);
+        Records records = Records.start(headerRow, rows.iterator(), rows::close);
+        try {
+            if (records.header() != null) parser.keep(columns.apply(records.header()));
+        } catch (RuntimeException e) {
+            try {
+                records.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        return records;
+    }
+
+    public static final class Records implements AutoCloseable, Iterator<CsvRow> {
+        private final String[] header;
+        private final Iterator<CsvRow> it;
+        private final Closeable resource;
+
+        private Records(String[] header, Iterator<CsvRow> it, Closeable resource) {
+            this.header = header;
+            this.it = it;
+            this.resource = resource;
+        }
+
+        // Closes the resource when the header cannot be read
+        static Records start(int headerRow, Iterator<CsvRow> it, Closeable resource) {
+            try {
+                for (int i = 0; i < headerRow && it.hasNext(); i++) {
+                    it.next();
+                }
+                String[] header = it.hasNext() ? it.next().toArray() : null;
+                return new Records(header, it, resource);
+            } catch (RuntimeException e) {
+                try {
+                    resource.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+        }
+
+        // Null when the file ended before the header row
+        public String[] header() {
+            return header;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return header != null && it.hasNext();
+        }
+
+        @Override
+        public CsvRow next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return it.next();
+        }
+
+        @Override
+        public void close() throws IOException {
+            resource.close();
+        }
+    }
+
+    private static final class MappedIterator implements Iterator<CsvRow> {
+        private final MappedCsvReader reader;
+        private boolean ready;
+        private boolean more;
+
+        MappedIterator(MappedCsvReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!ready) {
+                more = reader.advance();
+                ready = true;
+            }
+            return more;
+        }
+
+        @Override
+        public CsvRow next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ready = false;
+            return reader.current();
+        }
+    }
+
+    private static final class RowSpliterator extends Spliterators.AbstractSpliterator<CsvRow> {
+        private final CsvParser parser;
+        private long index;
+
+        RowSpliterator(CsvParser parser) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.parser = parser;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super CsvRow> action) {
+            String[] record;
+            try {
+                record = parser.next();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (record == null) return false;
+            action.accept(new ArrayCsvRow(index++, record));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package utils.csv;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, column-oriented copy of a whole CSV file. Each column is stored as an
+ * int code per row plus a dictionary of its distinct values, so repeated values
+ * (well ids, sample names, targets) are held once. Rows may have different widths;
+ * a missing cell has code -1. Safe to share between threads once built.
+ */
+public final class CsvTable {
+    static final int MISSING = -1;
+
+    private final int rowCount;
+    private final int[] widths;
+    private final int[][] codes;
+    private final String[][] dictionaries;
+    private final long estimatedBytes;
+
+    private CsvTable(int rowCount, int[] widths, int[][] codes, String[][] dictionaries) {
+        this.rowCount = rowCount;
+        this.widths = widths;
+        this.codes = codes;
+        this.dictionaries = dictionaries;
+        long bytes = 4L * rowCount;
+        for (int c = 0; c < codes.length; c++) {
+            bytes += 4L * rowCount;
+            for (String value : dictionaries[c]) bytes += 40 + 2L * value.length();
+        }
+        this.estimatedBytes = bytes;
+    }
+
+    // Parses the whole file once; intended for CsvTableCache, which bounds what it loads
+    static CsvTable load(CsvSource source) throws IOException {
+        Builder builder = new Builder();
+        try (CsvSource.Records records = source.records(0)) {
+            String[] first = records.header();
+            if (first != null) {
+                builder.add(first);
+                while (records.hasNext()) builder.add(records.next());
+            }
+        }
+        return builder.build();
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public int width(int row) {
+        return widths[row];
+    }
+
+    public String value(int row, int column) {
+        int code = code(row, column);
+        return code == MISSING ? null : dictionaries[column][code];
+    }
+
+    // Dictionary code of a cell, or -1 when the row has no such column
+    public int code(int row, int column) {
+        return column < widths[row] ? codes[column][row] : MISSING;
+    }
+
+    public String[] dictionary(int column) {
+        return column < dictionaries.length ? dictionaries[column] : new String[0];
+    }
+
+    public CsvRow row(int row) {
+        return new TableRow(row);
+    }
+
+    long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    // Same contract as CsvSource.records(headerRow), served from memory
+    public CsvSource.Records records(int headerRow) {
+        Iterator<CsvRow> it = new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < rowCount;
+            }
+
+            @Override
+            public CsvRow next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return new TableRow(next++);
+            }
+        };
+        return CsvSource.Records.start(headerRow, it, () -> { });
+    }
+
+    private final class TableRow implements CsvRow {
+        private final int row;
+
+        TableRow(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public long index() {
+            return row;
+        }
+
+        @Override
+        public int size() {
+            return widths[row];
+        }
+
+        @Override
+        public String get(int column) {
+            if (column < 0 || column >= widths[row]) throw new IndexOutOfBoundsException(column);
+            return dictionaries[column][codes[column][row]];
+        }
+
+        @Override
+        public String[] toArray() {
+            String[] values = new String[widths[row]];
+            for (int c = 0; c < values.length; c++) values[c] = dictionaries[c][codes[c][row]];
+            return values;
+        }
+    }
+
+    private static final class Builder {
+        private int rows;
+        private int[] widths = new int[1024];
+        private final List<int[]> codes = new ArrayList<>();
+        private final List<Map<String, Integer>> lookups = new ArrayList<>();
+        private final List<List<String>> values = new ArrayList<>();
+
+        void add(String[] record) {
+            ensureRows();
+            widths[rows] = record.length;
+            for (int c = 0; c < record.length; c++) put(c, record[c]);
+            rows++;
+        }
+
+        void add(CsvRow record) {
+            ensureRows();
+            int width = record.size();
+            widths[rows] = width;
+            for (int c = 0; c < width; c++) put(c, record.get(c));
+            rows++;
+        }
+
+        private void ensureRows() {
+            if (rows == widths.length) {
+                widths = Arrays.copyOf(widths, rows * 2);
+                for (int c = 0; c < codes.size(); c++) codes.set(c, Arrays.copyOf(codes.get(c), rows * 2));
+            }
+        }
+
+        private void put(int column, String value) {
+            while (codes.size() <= column) {
+                int[] columnCodes = new int[widths.length];
+                Arrays.fill(columnCodes, MISSING);
+                codes.add(columnCodes);
+                lookups.add(new HashMap<>());
+                values.add(new ArrayList<>());
+            }
+            Map<String, Integer> lookup = lookups.get(column);
+            Integer code = lookup.get(value);
+            if (code == null) {
+                code = values.get(column).size();
+                lookup.put(value, code);
+                values.get(column).add(value);
+            }
+            codes.get(column)[rows] = code;
+        }
+
+        CsvTable build() {
+            int columns = codes.size();
+            int[][] columnCodes = new int[columns][];
+            String[][] dictionaries = new String[columns][];
+            for (int c = 0; c < columns; c++) {
+                columnCodes[c] = Arrays.copyOf(codes.get(c), rows);
+                dictionaries[c] = values.get(c).toArray(new String[0]);
+            }
+            return new CsvTable(rows, Arrays.copyOf(widths, rows), columnCodes, dictionaries);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package utils.csv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Process-wide cache of parsed CSV files as {@link CsvTable}s, keyed by path and
+ * validated against size + modification time on every lookup. When several test
+ * threads ask for the same file at once only one of them parses it; the rest wait
+ * for that result. Entries are evicted least-recently-used once the estimated heap
+ * footprint passes {@link #MAX_BYTES}; files too large to fit are not cached at all
+ * and callers fall back to streaming.
+ */
+public final class CsvTableCache {
+    public static final long MAX_BYTES = Long.getLong("csv.cache.maxBytes", 256L * 1024 * 1024);
+    // A single file may take at most this share of the cache, judged by its size on disk
+    public static final long MAX_FILE_BYTES = Long.getLong("csv.cache.maxFileBytes", MAX_BYTES / 4);
+
+    private static final CsvLocks<Object> LOCKS = CsvLocks.monitors();
+    private static final LinkedHashMap<Path, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+    private static long totalBytes;
+
+    private CsvTableCache() {
+    }
+
+    // Returns the cached table for the file, loading it if needed, or null if the file is too large to cache
+    public static CsvTable get(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS);
+        if (size > MAX_FILE_BYTES) return null;
+
+        CsvTable table = lookup(key, size, modified);
+        if (table != null) return table;
+
+        synchronized (LOCKS.of(key)) {
+            table = lookup(key, size, modified);
+            if (table != null) return table;
+            table = CsvTable.load(CsvSource.of(key));
+            store(key, new Entry(size, modified, table));
+            return table;
+        }
+    }
+
+    // The cached table if it is loaded and still current, never parsing the file
+    public static CsvTable peek(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+        return lookup(key, attrs.size(), attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS));
+    }
+
+    // Records after the header row, from the cached table when the file fits, otherwise streamed from disk
+    public static CsvSource.Records records(Path file, int headerRow) throws IOException {
+        CsvTable table = get(file);
+        return table != null ? table.records(headerRow) : CsvSource.of(file).records(headerRow);
+    }
+
+    // As above; a file too large to cache is streamed reading only the columns flagged by columns(header)
+    public static CsvSource.Records records(Path file, int headerRow, Function<String[], boolean[]> columns) throws IOException {
+        CsvTable table = get(file);
+        return table != null ? table.records(headerRow) : CsvSource.of(file).records(headerRow, columns);
+    }
+
+    public static void invalidate(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        synchronized (ENTRIES) {
+            Entry removed = ENTRIES.remove(key);
+            if (removed != null) totalBytes -= removed.table.estimatedBytes();
+        }
+    }
+
+    public static void clear() {
+        synchronized (ENTRIES) {
+            ENTRIES.clear();
+            totalBytes = 0;
+        }
+    }
+
+    private static CsvTable lookup(Path key, long size, long modified) {
+        synchronized (ENTRIES) {
+            Entry entry = ENTRIES.get(key);
+            if (entry == null) return null;
+            if (entry.size == size && entry.modified == modified) return entry.table;
+            ENTRIES.remove(key);
+            totalBytes -= entry.table.estimatedBytes();
+            return null;
+        }
+    }
+
+    private static void store(Path key, Entry entry) {
+        synchronized (ENTRIES) {
+            Entry previous = ENTRIES.put(key, entry);
+            if (previous != null) totalBytes -= previous.table.estimatedBytes();
+            totalBytes += entry.table.estimatedBytes();
+
+            Iterator<Map.Entry<Path, Entry>> eldest = ENTRIES.entrySet().iterator();
+            while (totalBytes > MAX_BYTES && eldest.hasNext()) {
+                Map.Entry<Path, Entry> next = eldest.next();
+                if (next.getKey().equals(key)) continue;
+                totalBytes -= next.getValue().table.estimatedBytes();
+                eldest.remove();
+            }
+        }
+    }
+
+    private record Entry(long size, long modified, CsvTable table) {
+    }
+}
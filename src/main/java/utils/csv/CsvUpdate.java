@@ -0,0 +1,202 @@
+package utils.csv;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Column patches applied in a single streaming pass:
+ * <pre>
+ * CsvUpdate.of(path).set("Result", results).append("Run", runIds).apply();
+ * </pre>
+ * The file is read record by record and written to a temp file in the same directory,
+ * which is synced and then renamed over the original, so memory stays bounded by one
+ * record plus the patch values and a crash mid-write leaves the original untouched.
+ *
+ * Value i of a patch goes into data row i (the rows after the header row); data rows
+ * past the end of a patch get an empty cell, and patches longer than the file add rows.
+ * Short data rows are padded to the header width. Records before the header row
+ * are copied as they are. Fields are quoted when they contain a comma, quote or newline.
+ */
+public final class CsvUpdate {
+    private final Path path;
+    private int headerRow;
+    private final List<Patch> patches = new ArrayList<>();
+
+    private CsvUpdate(Path path) {
+        this.path = path;
+    }
+
+    public static CsvUpdate of(Path path) {
+        return new CsvUpdate(path);
+    }
+
+    public CsvUpdate headerRow(int headerRow) {
+        this.headerRow = headerRow;
+        return this;
+    }
+
+    // Replaces the first column whose header equals the name, or adds it at the end
+    public CsvUpdate set(String column, List<String> values) {
+        patches.add(new Patch(column, values, false));
+        return this;
+    }
+
+    // Always adds a new column at the end, even if one with that name exists
+    public CsvUpdate append(String column, List<String> values) {
+        patches.add(new Patch(column, values, true));
+        return this;
+    }
+
+    // Returns false, leaving the file as it was, when the file ends before the header row
+    // Appends to the file wait until the new file is in place, so none go to the replaced one
+    public boolean apply() throws IOException {
+        Path target = path.toAbsolutePath().normalize();
+        ReentrantLock lock = CsvAppender.lock(target);
+        lock.lock();
+        try {
+            CsvAppender.closeFile(target);
+            return replace(target);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean replace(Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+        boolean replaced = false;
+        try {
+            if (!rewrite(target, temp)) return false;
+            copyPermissions(target, temp);
+            move(temp, target);
+            replaced = true;
+        } finally {
+            if (!replaced) Files.deleteIfExists(temp);
+            CsvRowIndex.invalidate(target);
+            CsvTableCache.invalidate(target);
+            CsvIndexes.invalidate(target);
+        }
+        return true;
+    }
+
+    private boolean rewrite(Path source, Path temp) throws IOException {
+        try (Stream<CsvRow> stream = CsvSource.of(source).rows();
+             FileOutputStream out = new FileOutputStream(temp.toFile());
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024)) {
+            Iterator<CsvRow> rows = stream.iterator();
+            for (int i = 0; i < headerRow; i++) {
+                if (!rows.hasNext()) return false;
+                write(writer, rows.next().toArray());
+            }
+            if (!rows.hasNext()) return false;
+
+            List<String> header = new ArrayList<>(Arrays.asList(rows.next().toArray()));
+            int existing = header.size();
+            int[] targets = new int[patches.size()];
+            long patchRows = 0;
+            for (int p = 0; p < targets.length; p++) {
+                Patch patch = patches.get(p);
+                targets[p] = patch.append ? -1 : header.indexOf(patch.column);
+                if (targets[p] == -1) {
+                    header.add(patch.column);
+                    targets[p] = header.size() - 1;
+                }
+                patchRows = Math.max(patchRows, patch.values.size());
+            }
+            int added = header.size() - existing;
+            write(writer, header.toArray(new String[0]));
+
+            for (int i = 0; rows.hasNext() || i < patchRows; i++) {
+                String[] base = rows.hasNext() ? rows.next().toArray() : new String[0];
+                // Added columns go after the row's own cells when it is wider than the header
+                int shift = Math.max(base.length, existing) - existing;
+                String[] cells = Arrays.copyOf(base, existing + shift + added);
+                for (int c = base.length; c < cells.length; c++) cells[c] = "";
+                for (int p = 0; p < targets.length; p++) {
+                    List<String> values = patches.get(p).values;
+                    String value = i < values.size() ? values.get(i) : "";
+                    cells[targets[p] < existing ? targets[p] : targets[p] + shift] = value == null ? "" : value;
+                }
+                write(writer, cells);
+            }
+
+            writer.flush();
+            out.getFD().sync();
+            return true;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // The temp file is created owner-only; give it the original's permissions, group and owner
+    // before it takes the original's place. Changing the owner needs privileges, so that part
+    // is best effort.
+    private static void copyPermissions(Path source, Path temp) throws IOException {
+        PosixFileAttributeView posix = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+        if (posix != null) {
+            PosixFileAttributes attrs = posix.readAttributes();
+            PosixFileAttributeView copy = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+            copy.setPermissions(attrs.permissions());
+            try {
+                copy.setGroup(attrs.group());
+                copy.setOwner(attrs.owner());
+            } catch (IOException ignored) {
+            }
+            return;
+        }
+        AclFileAttributeView acl = Files.getFileAttributeView(source, AclFileAttributeView.class);
+        if (acl != null) {
+            Files.getFileAttributeView(temp, AclFileAttributeView.class).setAcl(acl.getAcl());
+            try {
+                Files.setOwner(temp, acl.getOwner());
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static void move(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void write(Writer writer, String[] cells) throws IOException {
+        for (int c = 0; c < cells.length; c++) {
+            if (c > 0) writer.write(',');
+            writeField(writer, cells[c]);
+        }
+        writer.write(System.lineSeparator());
+    }
+
+    static void writeField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private record Patch(String column, List<String> values, boolean append) {
+    }
+}
@@ -0,0 +1,386 @@
+package utils.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Zero-copy CSV reader over a memory-mapped file. Records are tokenised directly on
+ * the mapped bytes; only field boundaries are recorded and a String is built only when
+ * a field is actually asked for. The row returned by {@link #current()} is a reusable
+ * view that is valid until the next {@link #advance()}.
+ *
+ * Tokenising follows the same rules as CsvParser, so both readers agree on every file.
+ *
+ * close() unmaps the file right away rather than when the buffers are collected, so it
+ * can be replaced or deleted straight after (Windows refuses while a mapping is alive).
+ * Rows must not be used after that. On a JVM without sun.misc.Unsafe the mapping is
+ * only released once the buffers are garbage collected.
+ */
+final class MappedCsvReader implements Closeable {
+    // Files are mapped in 1 GB windows since a single mapping is limited to 2 GB
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    // Unsafe.invokeCleaner, which unmaps a buffer without waiting for GC; null when unavailable.
+    // Looked up reflectively to keep the proprietary API out of the compile; Arena-backed
+    // segments unmap too but are a preview API in Java 21
+    private static final MethodHandle CLEANER = cleaner();
+
+    private final FileChannel channel;
+    private MappedByteBuffer[] segments;
+    private final long size;
+
+    private long pos;
+    private long recordIndex;
+    private int fieldCount;
+    private long[] fieldStart = new long[32];
+    private long[] fieldEnd = new long[32];
+    private boolean[] fieldQuoted = new boolean[32];
+    private byte[] scratch = new byte[256];
+
+    private final MappedRow row = new MappedRow();
+    private final long[] bounds = new long[2];
+
+    MappedCsvReader(Path path) throws IOException {
+        this(path, 0, -1, 0);
+    }
+
+    // Reads only the bytes [start, end) of the file, which must begin on a record boundary;
+    // end -1 means end of file and firstRecordIndex numbers the first record in the range
+    MappedCsvReader(Path path, long start, long end, long firstRecordIndex) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            size = (end < 0 ? channel.size() : end) - start;
+            int count = (int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long offset = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + offset, Math.min(SEGMENT_MASK + 1, size - offset));
+            }
+        } catch (IOException | RuntimeException e) {
+            unmap();
+            channel.close();
+            throw e;
+        }
+        recordIndex = firstRecordIndex - 1;
+        if (start == 0 && size >= 3 && (at(0) & 0xFF) == 0xEF && (at(1) & 0xFF) == 0xBB && (at(2) & 0xFF) == 0xBF) {
+            pos = 3;
+        }
+    }
+
+    private byte at(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+    }
+
+    // Moves to the next record, returning false at end of file
+    boolean advance() {
+        ensureOpen();
+        if (pos >= size) return false;
+        recordIndex++;
+        fieldCount = 0;
+        while (true) {
+            long start = pos;
+            boolean quoted = false;
+            if (at(pos) == '"') {
+                quoted = true;
+                pos++;
+                start = pos;
+                // Skip to the closing quote, stepping over "" pairs
+                while (pos < size) {
+                    if (at(pos++) == '"') {
+                        if (pos < size && at(pos) == '"') {
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+            }
+            while (pos < size) {
+                byte b = at(pos);
+                if (b == ',' || b == '\n' || b == '\r') break;
+                pos++;
+            }
+            addField(start, pos, quoted);
+
+            if (pos >= size) break;
+            byte b = at(pos++);
+            if (b == ',') {
+                if (pos >= size) {
+                    addField(pos, pos, false);
+                    break;
+                }
+                continue;
+            }
+            if (b == '\r' && pos < size && at(pos) == '\n') pos++;
+            break;
+        }
+        return true;
+    }
+
+    CsvRow current() {
+        return row;
+    }
+
+    private void addField(long start, long end, boolean quoted) {
+        if (fieldCount == fieldStart.length) {
+            int grown = fieldCount * 2;
+            fieldStart = Arrays.copyOf(fieldStart, grown);
+            fieldEnd = Arrays.copyOf(fieldEnd, grown);
+            fieldQuoted = Arrays.copyOf(fieldQuoted, grown);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = end;
+        fieldQuoted[fieldCount] = quoted;
+        fieldCount++;
+    }
+
+    private String decode(int column) {
+        long start = fieldStart[column];
+        long end = fieldEnd[column];
+        int length = Math.toIntExact(end - start);
+        if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        int n = 0;
+        if (!fieldQuoted[column]) {
+            for (long p = start; p < end; p++) scratch[n++] = at(p);
+        } else {
+            boolean open = true;
+            for (long p = start; p < end; p++) {
+                byte b = at(p);
+                if (open && b == '"') {
+                    if (p + 1 < end && at(p + 1) == '"') {
+                        scratch[n++] = '"';
+                        p++;
+                    } else {
+                        open = false;
+                    }
+                    continue;
+                }
+                scratch[n++] = b;
+            }
+        }
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    // Compares the trimmed field with expected, ignoring case, without building a String.
+    // Falls back to decoding for quoted fields and anything outside plain ASCII.
+    private boolean matchesIgnoreCaseTrimmed(int column, String expected) {
+        if (fieldQuoted[column]) return expected.equalsIgnoreCase(decode(column).trim());
+        long start = fieldStart[column];
+        long end = fieldEnd[column];
+        while (start < end && (at(start) & 0xFF) <= ' ') start++;
+        while (end > start && (at(end - 1) & 0xFF) <= ' ') end--;
+        if (end - start != expected.length()) {
+            for (long p = start; p < end; p++) {
+                if (at(p) < 0) return expected.equalsIgnoreCase(decode(column).trim());
+            }
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            char e = expected.charAt(i);
+            byte b = at(start + i);
+            if (e >= 0x80 || b < 0) return expected.equalsIgnoreCase(decode(column).trim());
+            if (e != b && Character.toLowerCase(e) != Character.toLowerCase((char) b)) return false;
+        }
+        return true;
+    }
+
+    // Bounds of the trimmed field into bounds, or false when it has to go through decode
+    private boolean trimmedPlain(int column, long[] bounds) {
+        if (fieldQuoted[column]) return false;
+        long start = fieldStart[column];
+        long end = fieldEnd[column];
+        while (start < end && (at(start) & 0xFF) <= ' ') start++;
+        while (end > start && (at(end - 1) & 0xFF) <= ' ') end--;
+        bounds[0] = start;
+        bounds[1] = end;
+        return true;
+    }
+
+    // Plain [+-]digits of up to 18 digits, parsed in place; Long.MIN_VALUE asks for the slow path
+    private long parseLong(int column) {
+        if (!trimmedPlain(column, bounds)) return Long.MIN_VALUE;
+        long p = bounds[0];
+        long end = bounds[1];
+        if (p == end) return 0;
+        boolean negative = false;
+        byte b = at(p);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            p++;
+        }
+        if (p == end || end - p > 18) return Long.MIN_VALUE;
+        long value = 0;
+        for (; p < end; p++) {
+            int digit = at(p) - '0';
+            if (digit < 0 || digit > 9) return Long.MIN_VALUE;
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Decimal [+-]digits[.digits][e[+-]digits] parsed in place when the result is exact:
+    // a mantissa below 2^53 scaled by an exactly representable power of ten (Clinger's fast
+    // path), so it always equals Double.parseDouble. NaN asks for the slow path.
+    private double parseDouble(int column) {
+        if (!trimmedPlain(column, bounds)) return Double.NaN;
+        long p = bounds[0];
+        long end = bounds[1];
+        if (p == end) return Double.NaN;
+        boolean negative = false;
+        byte b = at(p);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            p++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; p < end; p++) {
+            b = at(p);
+            if (b == '.' && !point) {
+                point = true;
+            } else if (b >= '0' && b <= '9') {
+                if (++digits > 18) return Double.NaN;
+                mantissa = mantissa * 10 + (b - '0');
+                if (point) scale--;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) return Double.NaN;
+        if (p < end) {
+            if (b != 'e' && b != 'E') return Double.NaN;
+            p++;
+            boolean negativeExponent = false;
+            if (p < end && (at(p) == '-' || at(p) == '+')) negativeExponent = at(p++) == '-';
+            if (p == end || end - p > 3) return Double.NaN;
+            int exponent = 0;
+            for (; p < end; p++) {
+                int digit = at(p) - '0';
+                if (digit < 0 || digit > 9) return Double.NaN;
+                exponent = exponent * 10 + digit;
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (mantissa >= (1L << 53) || scale < -22 || scale > 22) return Double.NaN;
+        double value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        unmap();
+        channel.close();
+    }
+
+    private void unmap() {
+        MappedByteBuffer[] mapped = segments;
+        segments = null;
+        if (mapped == null) return;
+        for (MappedByteBuffer segment : mapped) {
+            if (segment != null && CLEANER != null) clean(segment);
+        }
+    }
+
+    private static void clean(MappedByteBuffer segment) {
+        try {
+            CLEANER.invoke(segment);
+        } catch (Throwable e) {
+            // left to the GC, like any other buffer
+        }
+    }
+
+    // Touching an unmapped buffer would crash the JVM, so every entry point checks first
+    private void ensureOpen() {
+        if (segments == null) throw new IllegalStateException("CSV reader is closed");
+    }
+
+    private static MethodHandle cleaner() {
+        try {
+            Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+            Field field = unsafe.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .unreflect(unsafe.getMethod("invokeCleaner", ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private final class MappedRow implements CsvRow {
+        @Override
+        public long index() {
+            return recordIndex;
+        }
+
+        @Override
+        public int size() {
+            return fieldCount;
+        }
+
+        @Override
+        public String get(int column) {
+            ensureOpen();
+            if (column < 0 || column >= fieldCount) throw new IndexOutOfBoundsException(column);
+            return decode(column);
+        }
+
+        @Override
+        public String[] toArray() {
+            ensureOpen();
+            String[] values = new String[fieldCount];
+            for (int i = 0; i < fieldCount; i++) values[i] = decode(i);
+            return values;
+        }
+
+        @Override
+        public boolean matchesIgnoreCaseTrimmed(int column, String expected) {
+            ensureOpen();
+            if (column < 0 || column >= fieldCount) throw new IndexOutOfBoundsException(column);
+            return MappedCsvReader.this.matchesIgnoreCaseTrimmed(column, expected);
+        }
+
+        @Override
+        public int getInt(int column) {
+            ensureOpen();
+            if (column < 0 || column >= fieldCount) throw new IndexOutOfBoundsException(column);
+            long value = parseLong(column);
+            if (value != Long.MIN_VALUE && value == (int) value) return (int) value;
+            return CsvRow.super.getInt(column);
+        }
+
+        @Override
+        public long getLong(int column) {
+            ensureOpen();
+            if (column < 0 || column >= fieldCount) throw new IndexOutOfBoundsException(column);
+            long value = parseLong(column);
+            return value != Long.MIN_VALUE ? value : CsvRow.super.getLong(column);
+        }
+
+        @Override
+        public double getDouble(int column) {
+            ensureOpen();
+            if (column < 0 || column >= fieldCount) throw new IndexOutOfBoundsException(column);
+            double value = parseDouble(column);
+            return !Double.isNaN(value) ? value : CsvRow.super.getDouble(column);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package utils.csv;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.util.Locale;
+
+/**
+ * Maps CSV rows onto a record through its canonical constructor. The constructor is
+ * looked up once per record type; binding to a header then composes, per component, a
+ * method handle that reads the column straight from the row (primitives via
+ * {@link CsvRow#getInt}/{@link CsvRow#getLong}/{@link CsvRow#getDouble}, so no String is
+ * built for them on the mapped reader) into one CsvRow -> record handle.
+ *
+ * Components match header cells with case, spaces and punctuation ignored, so
+ * {@code cqMean} picks up a "Cq Mean" column. Blank cells give 0 / NaN / false for
+ * primitives and null for boxed types.
+ */
+final class RecordMapper<R extends Record> {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType ROW_TO_OBJECT = MethodType.methodType(Object.class, CsvRow.class);
+
+    private static final ClassValue<Shape> SHAPES = new ClassValue<>() {
+        @Override
+        protected Shape computeValue(Class<?> type) {
+            return Shape.of(type);
+        }
+    };
+
+    private final Class<R> type;
+    private final String[] names;
+    private final MethodHandle mapper;
+
+    private RecordMapper(Class<R> type, String[] names, MethodHandle mapper) {
+        this.type = type;
+        this.names = names;
+        this.mapper = mapper;
+    }
+
+    static <R extends Record> RecordMapper<R> bind(Class<R> type, String[] header) {
+        Shape shape = SHAPES.get(type);
+        int count = shape.names.length;
+        MethodHandle[] readers = new MethodHandle[count];
+        for (int i = 0; i < count; i++) {
+            int column = column(header, shape.names[i]);
+            readers[i] = MethodHandles.insertArguments(reader(shape.types[i]), 0, column);
+        }
+        MethodHandle mapper = MethodHandles.filterArguments(shape.constructor, 0, readers);
+        mapper = MethodHandles.permuteArguments(mapper.asType(mapper.type().changeReturnType(Object.class)), ROW_TO_OBJECT, new int[count]);
+        return new RecordMapper<>(type, shape.names, mapper);
+    }
+
+    R map(CsvRow row) {
+        try {
+            return type.cast((Object) mapper.invokeExact(row));
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Row " + row.index() + " of " + type.getSimpleName() + ": " + e.getMessage());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create " + type.getSimpleName() + " with " + String.join(", ", names), e);
+        }
+    }
+
+    private static int column(String[] header, String component) {
+        String wanted = normalize(component);
+        for (int i = 0; i < header.length; i++) {
+            if (normalize(header[i]).equals(wanted)) return i;
+        }
+        throw new IllegalArgumentException("Column not found: " + component);
+    }
+
+    private static String normalize(String name) {
+        StringBuilder normalized = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) normalized.append(c);
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static MethodHandle reader(Class<?> type) {
+        String name;
+        if (type == String.class) name = "string";
+        else if (type == int.class) name = "intValue";
+        else if (type == long.class) name = "longValue";
+        else if (type == double.class) name = "doubleValue";
+        else if (type == boolean.class) name = "booleanValue";
+        else if (type == Integer.class) name = "boxedInt";
+        else if (type == Long.class) name = "boxedLong";
+        else if (type == Double.class) name = "boxedDouble";
+        else if (type == Boolean.class) name = "boxedBoolean";
+        else throw new IllegalArgumentException("Unsupported record component type: " + type.getName());
+        try {
+            return LOOKUP.findStatic(RecordMapper.class, name, MethodType.methodType(type, int.class, CsvRow.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean present(int column, CsvRow row) {
+        return column < row.size() && !row.get(column).isBlank();
+    }
+
+    private static String string(int column, CsvRow row) {
+        return row.getOrEmpty(column);
+    }
+
+    private static int intValue(int column, CsvRow row) {
+        return column < row.size() ? row.getInt(column) : 0;
+    }
+
+    private static long longValue(int column, CsvRow row) {
+        return column < row.size() ? row.getLong(column) : 0;
+    }
+
+    private static double doubleValue(int column, CsvRow row) {
+        return column < row.size() ? row.getDouble(column) : Double.NaN;
+    }
+
+    private static boolean booleanValue(int column, CsvRow row) {
+        return column < row.size() && Boolean.parseBoolean(row.get(column).trim());
+    }
+
+    private static Integer boxedInt(int column, CsvRow row) {
+        return present(column, row) ? row.getInt(column) : null;
+    }
+
+    private static Long boxedLong(int column, CsvRow row) {
+        return present(column, row) ? row.getLong(column) : null;
+    }
+
+    private static Double boxedDouble(int column, CsvRow row) {
+        return present(column, row) ? row.getDouble(column) : null;
+    }
+
+    private static Boolean boxedBoolean(int column, CsvRow row) {
+        return present(column, row) ? Boolean.parseBoolean(row.get(column).trim()) : null;
+    }
+
+    // Canonical constructor and component names/types of a record class
+    private record Shape(MethodHandle constructor, String[] names, Class<?>[] types) {
+        static Shape of(Class<?> type) {
+            if (!type.isRecord()) throw new IllegalArgumentException(type.getName() + " is not a record");
+            RecordComponent[] components = type.getRecordComponents();
+            String[] names = new String[components.length];
+            Class<?>[] types = new Class<?>[components.length];
+            for (int i = 0; i < components.length; i++) {
+                names[i] = components[i].getName();
+                types[i] = components[i].getType();
+            }
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, LOOKUP);
+                return new Shape(lookup.findConstructor(type, MethodType.methodType(void.class, types)), names, types);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Cannot access the constructor of " + type.getName(), e);
+            }
+        }
+    }
+}
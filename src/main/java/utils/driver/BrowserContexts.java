@@ -0,0 +1,203 @@
+package utils.driver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Isolated browser contexts (incognito-style profiles) inside one shared Chromium
+ * process per {@link DriverKey}, used by the DriverPool when BROWSER_ISOLATION=context.
+ * Every context gets its own blank page and its own chromedriver session attached to
+ * the shared browser, so tests keep running in parallel while cookies, storage and
+ * cache stay separate. A context opens in milliseconds instead of a browser launch.
+ *
+ * Attached sessions list the windows of every context in getWindowHandles();
+ * {@link WindowRegistry#handles} narrows them to the driver's own context.
+ */
+final class BrowserContexts {
+    private static final Logger logger = LogManager.getLogger(BrowserContexts.class);
+
+    private static final ConcurrentHashMap<DriverKey, CompletableFuture<Host>> hosts = new ConcurrentHashMap<>();
+    // Context of each attached driver, so its windows can be told apart from other contexts'
+    private static final Map<WebDriver, String> contexts = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private BrowserContexts() {
+    }
+
+    record Context(WebDriver driver, String id) {
+    }
+
+    static boolean supports(String browser) {
+        return browser.equals("chrome") || browser.equals("edge");
+    }
+
+    // A new context with one blank page and a driver switched to it; a dead shared browser is replaced once
+    static Context open(DriverKey key) {
+        Host host = host(key);
+        try {
+            return open(key, host);
+        } catch (WebDriverException e) {
+            // Other contexts may be running tests in this browser, so only a browser that is gone is replaced
+            if (host.alive()) throw e;
+            logger.warn("Shared {} browser is not responding, starting a new one: {}", key.browser(), e.getMessage());
+            drop(key, host);
+            return open(key, host(key));
+        }
+    }
+
+    // Null for a driver that does not run in a shared browser
+    static String contextOf(WebDriver driver) {
+        return contexts.get(driver);
+    }
+
+    // Moves the driver to a fresh context and disposes of the old one, with all its windows
+    static String renew(DriverKey key, WebDriver driver, String contextId) {
+        Host host = host(key);
+        String renewed = host.createContext();
+        try {
+            driver.switchTo().window(host.createPage(renewed));
+        } catch (RuntimeException e) {
+            host.dispose(renewed);
+            throw e;
+        }
+        host.dispose(contextId);
+        contexts.put(driver, renewed);
+        return renewed;
+    }
+
+    static void dispose(DriverKey key, String contextId) {
+        contexts.values().remove(contextId);
+        CompletableFuture<Host> host = hosts.get(key);
+        if (host != null && host.isDone() && !host.isCompletedExceptionally()) host.join().dispose(contextId);
+    }
+
+    // Quits the shared browsers; only call once no context is in use
+    static void closeAll() {
+        List<CompletableFuture<Host>> closing = new ArrayList<>(hosts.values());
+        hosts.clear();
+        for (CompletableFuture<Host> host : closing) {
+            if (host.isDone() && !host.isCompletedExceptionally()) host.join().quit();
+        }
+    }
+
+    private static Context open(DriverKey key, Host host) {
+        String contextId = host.createContext();
+        try {
+            String page = host.createPage(contextId);
+            WebDriver driver = DriverFactory.attach(key.browser(), key.profile(), host.debuggerAddress);
+            try {
+                driver.switchTo().window(page);
+            } catch (RuntimeException e) {
+                driver.quit();
+                throw e;
+            }
+            contexts.put(driver, contextId);
+            return new Context(driver, contextId);
+        } catch (RuntimeException e) {
+            host.dispose(contextId);
+            throw e;
+        }
+    }
+
+    // Launched on first use by the thread that asks first; others asking for the same key wait
+    // for that launch, while other keys are not held up
+    private static Host host(DriverKey key) {
+        CompletableFuture<Host> created = new CompletableFuture<>();
+        CompletableFuture<Host> host = hosts.putIfAbsent(key, created);
+        if (host == null) {
+            host = created;
+            try {
+                Host launched = new Host(key, DriverFactory.createInstance(key));
+                logger.info("Started shared {} browser for isolated contexts at {}", key.browser(), launched.debuggerAddress);
+                created.complete(launched);
+            } catch (RuntimeException e) {
+                hosts.remove(key, created);
+                created.completeExceptionally(e);
+            }
+        }
+        try {
+            return host.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static void drop(DriverKey key, Host host) {
+        CompletableFuture<Host> current = hosts.get(key);
+        if (current != null && current.isDone() && !current.isCompletedExceptionally() && current.join() == host) hosts.remove(key, current);
+        host.quit();
+    }
+
+    private static final class Host {
+        final WebDriver driver;
+        final String debuggerAddress;
+
+        Host(DriverKey key, WebDriver driver) {
+            this.driver = driver;
+            try {
+                debuggerAddress = debuggerAddress(key.browser(), driver);
+            } catch (RuntimeException e) {
+                driver.quit();
+                throw e;
+            }
+        }
+
+        String createContext() {
+            return (String) cdp("Target.createBrowserContext", Map.of("disposeOnDetach", false)).get("browserContextId");
+        }
+
+        // The page's target id doubles as its window handle
+        String createPage(String contextId) {
+            return (String) cdp("Target.createTarget", Map.of("url", "about:blank", "browserContextId", contextId)).get("targetId");
+        }
+
+        boolean alive() {
+            try {
+                cdp("Browser.getVersion", Map.of());
+                return true;
+            } catch (WebDriverException e) {
+                return false;
+            }
+        }
+
+        void dispose(String contextId) {
+            try {
+                cdp("Target.disposeBrowserContext", Map.of("browserContextId", contextId));
+            } catch (WebDriverException e) {
+                logger.warn("Could not dispose of browser context {}: {}", contextId, e.getMessage());
+            }
+        }
+
+        // One chromedriver session, so commands from different threads take turns
+        synchronized Map<String, Object> cdp(String command, Map<String, Object> parameters) {
+            return ((HasCdp) driver).executeCdpCommand(command, parameters);
+        }
+
+        void quit() {
+            try {
+                driver.quit();
+            } catch (WebDriverException e) {
+                logger.warn("Error while quitting shared browser", e);
+            }
+        }
+
+        private static String debuggerAddress(String browser, WebDriver driver) {
+            Object options = ((HasCapabilities) driver).getCapabilities()
+                    .getCapability(browser.equals("edge") ? "ms:edgeOptions" : "goog:chromeOptions");
+            if (options instanceof Map<?, ?> map && map.get("debuggerAddress") instanceof String address) return address;
+            throw new IllegalStateException("The " + browser + " driver did not report a debugger address");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package utils.driver;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import io.github.bonigarcia.wdm.config.DriverManagerType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import utils.TestConstants;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Driver executables (chromedriver, geckodriver, msedgedriver), resolved once per
+ * browser for the whole run and then handed to every launch. A DRIVER_PATH_CHROME,
+ * DRIVER_PATH_FIREFOX or DRIVER_PATH_EDGE setting pins a pre-downloaded binary and
+ * skips WebDriverManager; with DRIVER_OFFLINE=true that path is required.
+ *
+ * Browsers resolve independently of each other. Threads asking for a browser that is
+ * being resolved wait for that one result, later calls are a map lookup. A failed
+ * resolution is not remembered, so the next launch tries again.
+ */
+public final class DriverBinaries {
+    private static final Logger logger = LogManager.getLogger(DriverBinaries.class);
+
+    private static final ConcurrentHashMap<String, CompletableFuture<File>> binaries = new ConcurrentHashMap<>();
+
+    private DriverBinaries() {
+    }
+
+    public static File resolve(String browser) {
+        String name = browser.trim().toLowerCase();
+        CompletableFuture<File> created = new CompletableFuture<>();
+        CompletableFuture<File> binary = binaries.putIfAbsent(name, created);
+        if (binary == null) {
+            binary = created;
+            try {
+                created.complete(locate(name));
+            } catch (RuntimeException e) {
+                binaries.remove(name, created);
+                created.completeExceptionally(e);
+            }
+        }
+        try {
+            return binary.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    // Starts resolving in the background so the first launch does not wait for it
+    public static void prefetch(String browser) {
+        Thread.ofVirtual().name("driver-resolve-" + browser).start(() -> {
+            try {
+                resolve(browser);
+            } catch (RuntimeException e) {
+                logger.warn("Could not resolve the {} driver ahead of time: {}", browser, e.getMessage());
+            }
+        });
+    }
+
+    private static File locate(String browser) {
+        String configured;
+        DriverManagerType type;
+        switch (browser) {
+            case "chrome":
+                configured = TestConstants.DRIVER_PATH_CHROME;
+                type = DriverManagerType.CHROME;
+                break;
+            case "firefox":
+                configured = TestConstants.DRIVER_PATH_FIREFOX;
+                type = DriverManagerType.FIREFOX;
+                break;
+            case "edge":
+                configured = TestConstants.DRIVER_PATH_EDGE;
+                type = DriverManagerType.EDGE;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported browser: " + browser);
+        }
+
+        if (configured != null && !configured.trim().isEmpty()) {
+            File file = new File(configured.trim());
+            if (!file.isFile()) throw new IllegalStateException("Driver binary not found: " + file);
+            logger.info("Using configured {} driver: {}", browser, file);
+            return file;
+        }
+        if (Boolean.parseBoolean(trimmed(TestConstants.DRIVER_OFFLINE))) {
+            throw new IllegalStateException("DRIVER_OFFLINE is set but no driver path is configured for " + browser);
+        }
+
+        long start = System.nanoTime();
+        WebDriverManager manager = WebDriverManager.getInstance(type);
+        manager.setup();
+        String path = manager.getDownloadedDriverPath();
+        if (path == null) throw new IllegalStateException("WebDriverManager did not resolve a " + browser + " driver");
+        logger.info("Resolved {} driver in {} ms: {}", browser, (System.nanoTime() - start) / 1_000_000, path);
+        return new File(path);
+    }
+
+    private static String trimmed(String value) {
+        return value != null ? value.trim() : null;
+    }
+}
@@ -2,39 +2,61 @@ package utils.driver;
 
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.GeckoDriverService;
 import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeDriverService;
 import org.openqa.selenium.edge.EdgeOptions;
-import io.github.bonigarcia.wdm.WebDriverManager;
+
+import java.util.List;
 
 public class DriverFactory {
 
     public static WebDriver createInstance(String browser, boolean headless) {
+        return createInstance(browser, headless, LaunchProfile.current(), List.of());
+    }
+
+    public static WebDriver createInstance(DriverKey key) {
+        return createInstance(key.browser(), key.headless(), key.profile(), key.arguments());
+    }
+
+    // arguments are extra command line switches for the browser, added after the profile's
+    public static WebDriver createInstance(String browser, boolean headless, LaunchProfile profile, List<String> arguments) {
         WebDriver driver;
 
         switch (browser.toLowerCase()) {
             case "chrome":
-                WebDriverManager.chromedriver().setup();
                 ChromeOptions chromeOptions = new ChromeOptions();
                 chromeOptions.addArguments("--remote-allow-origins=*");
                 if (headless) chromeOptions.addArguments("--headless=new");
-                driver = new ChromeDriver(chromeOptions);
+                profile.apply(chromeOptions, "chrome");
+                chromeOptions.addArguments(arguments);
+                ChromeDriverService chromeService = new ChromeDriverService.Builder()
+                        .usingDriverExecutable(DriverBinaries.resolve("chrome")).usingAnyFreePort().build();
+                driver = new ChromeDriver(chromeService, chromeOptions);
                 break;
 
             case "firefox":
-                WebDriverManager.firefoxdriver().setup();
                 FirefoxOptions firefoxOptions = new FirefoxOptions();
                 if (headless) firefoxOptions.addArguments("--headless");
-                driver = new FirefoxDriver(firefoxOptions);
+                profile.apply(firefoxOptions);
+                firefoxOptions.addArguments(arguments);
+                GeckoDriverService firefoxService = new GeckoDriverService.Builder()
+                        .usingDriverExecutable(DriverBinaries.resolve("firefox")).usingAnyFreePort().build();
+                driver = new FirefoxDriver(firefoxService, firefoxOptions);
                 break;
 
             case "edge":
-                WebDriverManager.edgedriver().setup();
                 EdgeOptions edgeOptions = new EdgeOptions();
                 if (headless) edgeOptions.addArguments("--headless");
-                driver = new EdgeDriver(edgeOptions);
+                profile.apply(edgeOptions, "edge");
+                edgeOptions.addArguments(arguments);
+                EdgeDriverService edgeService = new EdgeDriverService.Builder()
+                        .usingDriverExecutable(DriverBinaries.resolve("edge")).usingAnyFreePort().build();
+                driver = new EdgeDriver(edgeService, edgeOptions);
                 break;
 
             default:
@@ -43,5 +65,28 @@ public class DriverFactory {
 
         return driver;
     }
-}
 
+    // A second driver session on a Chromium browser that is already running, see BrowserContexts
+    public static WebDriver attach(String browser, LaunchProfile profile, String debuggerAddress) {
+        switch (browser.toLowerCase()) {
+            case "chrome":
+                ChromeOptions chromeOptions = new ChromeOptions();
+                chromeOptions.setExperimentalOption("debuggerAddress", debuggerAddress);
+                chromeOptions.setPageLoadStrategy(profile.pageLoadStrategy());
+                ChromeDriverService chromeService = new ChromeDriverService.Builder()
+                        .usingDriverExecutable(DriverBinaries.resolve("chrome")).usingAnyFreePort().build();
+                return new ChromeDriver(chromeService, chromeOptions);
+
+            case "edge":
+                EdgeOptions edgeOptions = new EdgeOptions();
+                edgeOptions.setExperimentalOption("debuggerAddress", debuggerAddress);
+                edgeOptions.setPageLoadStrategy(profile.pageLoadStrategy());
+                EdgeDriverService edgeService = new EdgeDriverService.Builder()
+                        .usingDriverExecutable(DriverBinaries.resolve("edge")).usingAnyFreePort().build();
+                return new EdgeDriver(edgeService, edgeOptions);
+
+            default:
+                throw new IllegalArgumentException("Cannot attach to a running " + browser + " browser");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package utils.driver;
+
+import java.util.List;
+
+// What makes two browsers interchangeable in the DriverPool
+public record DriverKey(String browser, boolean headless, LaunchProfile profile, List<String> arguments) {
+
+    public DriverKey {
+        browser = browser.trim().toLowerCase();
+        arguments = List.copyOf(arguments);
+    }
+
+    // The PROFILE from config.properties and no extra arguments
+    public DriverKey(String browser, boolean headless) {
+        this(browser, headless, LaunchProfile.current(), List.of());
+    }
+}
@@ -0,0 +1,42 @@
+package utils.driver;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * A browser checked out of the {@link DriverPool}. Closing the lease hands the browser
+ * back for reuse; {@link #discard()} quits it instead, e.g. after it was left in a
+ * state that should not leak into the next test. Either happens at most once.
+ */
+public final class DriverLease implements AutoCloseable {
+    private final DriverPool.Session session;
+    private final WebDriver driver;
+    private boolean returned;
+
+    DriverLease(DriverPool.Session session) {
+        this.session = session;
+        this.driver = session.driver;
+    }
+
+    // Not pooled: the caller owns the browser and quits it itself
+    DriverLease(WebDriver driver) {
+        this.session = null;
+        this.driver = driver;
+    }
+
+    public WebDriver driver() {
+        return driver;
+    }
+
+    public synchronized void discard() {
+        if (returned) return;
+        returned = true;
+        if (session != null) DriverPool.discard(session);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (returned) return;
+        returned = true;
+        if (session != null) DriverPool.release(session);
+    }
+}
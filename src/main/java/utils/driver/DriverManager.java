@@ -2,9 +2,34 @@ package utils.driver;
 
 import org.openqa.selenium.WebDriver;
 
+// The browser of the current test thread, leased from the DriverPool
 public class DriverManager {
-    private static ThreadLocal<WebDriver> driver = new ThreadLocal<>();
-    public static WebDriver getDriver() {return driver.get();}
-    public static void setDriver(WebDriver driverInstance) {driver.set(driverInstance);}
-    public static void unload() {driver.remove();}
+    private static ThreadLocal<DriverLease> lease = new ThreadLocal<>();
+    public static WebDriver getDriver() {
+        DriverLease current = lease.get();
+        return current != null ? current.driver() : null;
+    }
+    // Leases a warm browser for this thread, returning any browser it still holds
+    public static WebDriver acquire(DriverKey key) {
+        unload();
+        lease.set(DriverPool.checkout(key));
+        return getDriver();
+    }
+    // A browser created outside the pool; the caller still quits it
+    public static void setDriver(WebDriver driverInstance) {
+        unload();
+        lease.set(new DriverLease(driverInstance));
+    }
+    // Hands the browser back to the pool
+    public static void unload() {
+        DriverLease current = lease.get();
+        lease.remove();
+        if (current != null) current.close();
+    }
+    // Quits the browser instead of handing it back
+    public static void discard() {
+        DriverLease current = lease.get();
+        lease.remove();
+        if (current != null) current.discard();
+    }
 }
@@ -0,0 +1,406 @@
+package utils.driver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoAlertPresentException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+import utils.TestConstants;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of warm browsers, kept per {@link DriverKey}. A returned browser has its
+ * extra windows closed, cookies and storage cleared and is parked on about:blank for
+ * the next checkout with the same key; an isolated context is swapped for a new one.
+ * Browsers that fail the reset or a health check, or that reached DRIVER_MAX_USES or
+ * DRIVER_MAX_AGE_MINUTES, are quit instead, as are browsers without CDP (Firefox) whose
+ * windows ended up on more than one origin, since only the current domain's cookies can
+ * be deleted there.
+ *
+ * At most DRIVER_POOL_SIZE browsers are alive at once, idle ones included: when all
+ * are leased checkout waits, and an idle browser of another key is quit to make room.
+ * At most DRIVER_MAX_IDLE of them sit idle or are being {@link #prewarm prewarmed}.
+ * DRIVER_REUSE=false quits every browser on return, as before the pool.
+ */
+public final class DriverPool {
+    private static final Logger logger = LogManager.getLogger(DriverPool.class);
+
+    public static final boolean REUSE = !"false".equalsIgnoreCase(setting(TestConstants.DRIVER_REUSE, "true"));
+    public static final int MAX_SESSIONS = Integer.parseInt(setting(TestConstants.DRIVER_POOL_SIZE, "5"));
+    public static final int MAX_USES = Integer.parseInt(setting(TestConstants.DRIVER_MAX_USES, "50"));
+    public static final long MAX_AGE_NANOS = TimeUnit.MINUTES.toNanos(Long.parseLong(setting(TestConstants.DRIVER_MAX_AGE_MINUTES, "30")));
+    // process: a browser per session; context: isolated contexts in a shared Chromium browser, see BrowserContexts
+    public static final String ISOLATION = setting(TestConstants.BROWSER_ISOLATION, "process");
+    public static final int MAX_IDLE = Math.min(MAX_SESSIONS, Integer.parseInt(setting(TestConstants.DRIVER_MAX_IDLE, "2")));
+
+    private static final Object lock = new Object();
+    private static final Map<DriverKey, Deque<Session>> idle = new HashMap<>();
+    // Prewarm launches still starting, and the checkouts waiting for one of them
+    private static final Map<DriverKey, Integer> launching = new HashMap<>();
+    private static final Map<DriverKey, Integer> waiting = new HashMap<>();
+    // Browsers started and not yet quit, leased, idle or launching
+    private static int live;
+    private static volatile boolean warnedIsolation;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(DriverPool::closeIdle, "driver-pool-shutdown"));
+    }
+
+    private DriverPool() {
+    }
+
+    // Blocks while DRIVER_POOL_SIZE browsers are leased
+    public static DriverLease checkout(DriverKey key) {
+        while (true) {
+            Session reused = null;
+            Session evicted = null;
+            synchronized (lock) {
+                while (true) {
+                    Deque<Session> sessions = idle.get(key);
+                    if (sessions != null && !sessions.isEmpty()) {
+                        reused = sessions.pollLast();
+                        break;
+                    }
+                    // A prewarmed browser nobody else is waiting for is further along than a new one
+                    if (launching.getOrDefault(key, 0) > waiting.getOrDefault(key, 0)) {
+                        waiting.merge(key, 1, Integer::sum);
+                        try {
+                            await();
+                        } finally {
+                            if (waiting.merge(key, -1, Integer::sum) == 0) waiting.remove(key);
+                        }
+                        continue;
+                    }
+                    if (live < MAX_SESSIONS) {
+                        live++;
+                        break;
+                    }
+                    // The evicted browser's slot goes to the new one
+                    evicted = oldestIdle();
+                    if (evicted != null) break;
+                    await();
+                }
+            }
+            if (evicted != null) {
+                logger.info("Evicting idle {} browser to make room for {}", evicted.key.browser(), key.browser());
+                quitQuietly(evicted);
+            }
+
+            if (reused == null) {
+                return new DriverLease(start(key));
+            }
+            String reason = expiry(reused);
+            if (reason == null && !healthy(reused)) reason = "unhealthy";
+            if (reason == null) {
+                reused.uses++;
+                return new DriverLease(reused);
+            }
+            retire(reused, reason);
+        }
+    }
+
+    /**
+     * Starts browsers for the key on background virtual threads until needed of them are
+     * idle or launching, as far as DRIVER_POOL_SIZE and DRIVER_MAX_IDLE allow. A checkout
+     * that finds no idle browser waits for one of these instead of starting its own.
+     * Returns the number of launches started.
+     */
+    public static int prewarm(DriverKey key, int needed) {
+        int started = 0;
+        synchronized (lock) {
+            int ready = idleCount(key) + launching.getOrDefault(key, 0);
+            int idleOrLaunching = idleCount(null);
+            for (int count : launching.values()) idleOrLaunching += count;
+            while (ready < needed && live < MAX_SESSIONS && idleOrLaunching < MAX_IDLE) {
+                live++;
+                ready++;
+                idleOrLaunching++;
+                started++;
+                launching.merge(key, 1, Integer::sum);
+            }
+        }
+        for (int i = 0; i < started; i++) {
+            Thread.ofVirtual().name("driver-prewarm-" + key.browser()).start(() -> warm(key));
+        }
+        return started;
+    }
+
+    // Quits the idle browsers; leased ones are quit when they come back
+    public static void closeIdle() {
+        List<Session> sessions = new ArrayList<>();
+        synchronized (lock) {
+            for (Deque<Session> deque : idle.values()) {
+                sessions.addAll(deque);
+                deque.clear();
+            }
+        }
+        for (Session session : sessions) {
+            retire(session, "closing pool");
+        }
+        synchronized (lock) {
+            if (live > 0) return;
+        }
+        BrowserContexts.closeAll();
+    }
+
+    static void release(Session session) {
+        String reason = !REUSE ? "reuse disabled" : expiry(session);
+        if (reason == null && !reset(session)) reason = "reset failed";
+        if (reason != null) {
+            retire(session, reason);
+            return;
+        }
+        Session evicted;
+        synchronized (lock) {
+            idle.computeIfAbsent(session.key, k -> new ArrayDeque<>()).offerLast(session);
+            evicted = idleCount(null) > MAX_IDLE ? oldestIdle() : null;
+            lock.notifyAll();
+        }
+        if (evicted != null) retire(evicted, "more than " + MAX_IDLE + " idle");
+    }
+
+    static void discard(Session session) {
+        retire(session, "discarded");
+    }
+
+    private static Session start(DriverKey key) {
+        WebDriver driver;
+        String context = null;
+        try {
+            if (isolated(key)) {
+                BrowserContexts.Context opened = BrowserContexts.open(key);
+                driver = opened.driver();
+                context = opened.id();
+            } else {
+                driver = DriverFactory.createInstance(key);
+            }
+        } catch (RuntimeException e) {
+            freeSlot();
+            throw e;
+        }
+        Session session = new Session(key, driver);
+        session.context = context;
+        try {
+            session.mainWindow = driver.getWindowHandle();
+        } catch (WebDriverException e) {
+            retire(session, "unhealthy at start");
+            throw e;
+        }
+        logger.info(context != null ? "Opened {} browser context for the pool" : "Started {} browser for the pool", key.browser());
+        return session;
+    }
+
+    private static void warm(DriverKey key) {
+        Session session = null;
+        try {
+            session = start(key);
+            // Not used yet, the checkout that takes it counts the first use
+            session.uses = 0;
+        } catch (RuntimeException e) {
+            logger.warn("Could not prewarm {} browser: {}", key.browser(), e.getMessage());
+        }
+        synchronized (lock) {
+            if (launching.merge(key, -1, Integer::sum) == 0) launching.remove(key);
+            if (session != null) {
+                session.returnedAt = System.nanoTime();
+                idle.computeIfAbsent(key, k -> new ArrayDeque<>()).offerLast(session);
+            }
+            lock.notifyAll();
+        }
+    }
+
+    // Caller holds the lock
+    private static void await() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a browser", e);
+        }
+    }
+
+    // Idle browsers of the key, or of every key for null; caller holds the lock
+    private static int idleCount(DriverKey key) {
+        if (key != null) {
+            Deque<Session> sessions = idle.get(key);
+            return sessions != null ? sessions.size() : 0;
+        }
+        int count = 0;
+        for (Deque<Session> sessions : idle.values()) count += sessions.size();
+        return count;
+    }
+
+    private static void retire(Session session, String reason) {
+        logger.info("Quitting {} browser: {}", session.key.browser(), reason);
+        quitQuietly(session);
+        freeSlot();
+    }
+
+    private static void freeSlot() {
+        synchronized (lock) {
+            live--;
+            lock.notifyAll();
+        }
+    }
+
+    // Removes and returns the least recently returned idle browser, of any key
+    private static Session oldestIdle() {
+        Session oldest = null;
+        for (Deque<Session> sessions : idle.values()) {
+            Session first = sessions.peekFirst();
+            if (first != null && (oldest == null || first.returnedAt < oldest.returnedAt)) oldest = first;
+        }
+        if (oldest != null) idle.get(oldest.key).pollFirst();
+        return oldest;
+    }
+
+    private static String expiry(Session session) {
+        if (session.uses >= MAX_USES) return "used " + session.uses + " times";
+        if (System.nanoTime() - session.startedAt >= MAX_AGE_NANOS) return "older than " + TimeUnit.NANOSECONDS.toMinutes(MAX_AGE_NANOS) + " minutes";
+        return null;
+    }
+
+    private static boolean healthy(Session session) {
+        try {
+            session.driver.getWindowHandle();
+            return true;
+        } catch (WebDriverException e) {
+            return false;
+        }
+    }
+
+    // Back to a single blank window with no alert, cookies or storage left from the last test
+    private static boolean reset(Session session) {
+        WebDriver driver = session.driver;
+        try {
+            if (session.context != null) {
+                session.context = BrowserContexts.renew(session.key, driver, session.context);
+                session.mainWindow = driver.getWindowHandle();
+                session.returnedAt = System.nanoTime();
+                return true;
+            }
+            try {
+                driver.switchTo().alert().dismiss();
+            } catch (NoAlertPresentException e) {
+                // nothing open
+            }
+            Set<String> handles = driver.getWindowHandles();
+            if (handles.isEmpty()) return false;
+            if (!handles.contains(session.mainWindow)) session.mainWindow = handles.iterator().next();
+            Set<String> origins = new HashSet<>();
+            for (String handle : handles) {
+                driver.switchTo().window(handle);
+                origins.addAll(visitedOrigins(driver));
+                if (handle.equals(session.mainWindow)) continue;
+                driver.close();
+            }
+            driver.switchTo().window(session.mainWindow);
+            // Without CDP only the current domain's cookies can be deleted, so another origin's would leak
+            if (!(driver instanceof HasCdp) && origins.size() > 1) {
+                logger.info("{} browser visited {} origins, their cookies cannot all be cleared", session.key.browser(), origins.size());
+                return false;
+            }
+            clearStorage(driver, origins);
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            session.returnedAt = System.nanoTime();
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Could not reset {} browser: {}", session.key.browser(), e.getMessage());
+            return false;
+        }
+    }
+
+    // Web storage of the current page; on Chromium also every cookie and all storage of each visited origin
+    private static void clearStorage(WebDriver driver, Set<String> origins) {
+        ((JavascriptExecutor) driver).executeScript("try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+        if (driver instanceof HasCdp cdp) {
+            cdp.executeCdpCommand("Network.clearBrowserCookies", Map.of());
+            for (String origin : origins) {
+                cdp.executeCdpCommand("Storage.clearDataForOrigin", Map.of("origin", origin, "storageTypes", "all"));
+            }
+        }
+    }
+
+    // Origins of the current window's pages; on Chromium every page in its history, not just the last
+    private static Set<String> visitedOrigins(WebDriver driver) {
+        Set<String> origins = new HashSet<>();
+        if (driver instanceof HasCdp cdp) {
+            Object entries = cdp.executeCdpCommand("Page.getNavigationHistory", Map.of()).get("entries");
+            if (entries instanceof List<?> list) {
+                for (Object entry : list) {
+                    if (entry instanceof Map<?, ?> page) addOrigin(origins, page.get("url"));
+                }
+            }
+        }
+        addOrigin(origins, driver.getCurrentUrl());
+        return origins;
+    }
+
+    private static void addOrigin(Set<String> origins, Object url) {
+        String origin = url instanceof String ? origin((String) url) : null;
+        if (origin != null) origins.add(origin);
+    }
+
+    private static String origin(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getHost() == null || !uri.getScheme().startsWith("http")) return null;
+            return uri.getScheme() + "://" + uri.getHost() + (uri.getPort() != -1 ? ":" + uri.getPort() : "");
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // For a context this only detaches its driver, the shared browser keeps running
+    private static void quitQuietly(Session session) {
+        try {
+            session.driver.quit();
+        } catch (WebDriverException e) {
+            logger.warn("Error while quitting {} browser", session.key.browser(), e);
+        }
+        if (session.context != null) BrowserContexts.dispose(session.key, session.context);
+    }
+
+    private static boolean isolated(DriverKey key) {
+        if (!"context".equalsIgnoreCase(ISOLATION)) return false;
+        if (BrowserContexts.supports(key.browser())) return true;
+        if (!warnedIsolation) {
+            warnedIsolation = true;
+            logger.warn("{} has no isolated browser contexts, falling back to a browser per session", key.browser());
+        }
+        return false;
+    }
+
+    private static String setting(String value, String defaultValue) {
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    static final class Session {
+        final DriverKey key;
+        final WebDriver driver;
+        final long startedAt = System.nanoTime();
+        String mainWindow;
+        // The browser context of an isolated session, null when it has a browser of its own
+        String context;
+        long returnedAt = startedAt;
+        int uses = 1;
+
+        Session(DriverKey key, WebDriver driver) {
+            this.key = key;
+            this.driver = driver;
+        }
+    }
+}
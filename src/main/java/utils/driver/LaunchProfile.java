@@ -0,0 +1,105 @@
+package utils.driver;
+
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.chromium.ChromiumOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import utils.TestConstants;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Named browser launch settings, picked with PROFILE in config.properties.
+ *
+ * default    - the browser as it comes, maximized, pages load fully
+ * ci-fast    - get() returns at DOMContentLoaded (eager); no images, extensions,
+ *              background networking or GPU; a fixed 1920x1080 window; a disk cache
+ *              shared by all browsers of the run (PROFILE_CACHE_DIR)
+ * ci-fastest - as ci-fast, but get() returns as soon as navigation starts (none), so
+ *              tests must wait for what they need themselves
+ *
+ * Compare them with the DriverLaunchBenchmark.
+ */
+public enum LaunchProfile {
+    DEFAULT("default", PageLoadStrategy.NORMAL, false),
+    CI_FAST("ci-fast", PageLoadStrategy.EAGER, true),
+    CI_FASTEST("ci-fastest", PageLoadStrategy.NONE, true);
+
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+
+    private final String profileName;
+    private final PageLoadStrategy pageLoadStrategy;
+    private final boolean lean;
+
+    LaunchProfile(String profileName, PageLoadStrategy pageLoadStrategy, boolean lean) {
+        this.profileName = profileName;
+        this.pageLoadStrategy = pageLoadStrategy;
+        this.lean = lean;
+    }
+
+    public static LaunchProfile current() {
+        return named(TestConstants.PROFILE);
+    }
+
+    // Blank is the default profile
+    public static LaunchProfile named(String name) {
+        if (name == null || name.trim().isEmpty()) return DEFAULT;
+        for (LaunchProfile profile : values()) {
+            if (profile.profileName.equalsIgnoreCase(name.trim())) return profile;
+        }
+        throw new IllegalArgumentException("Unknown launch profile: " + name);
+    }
+
+    public String profileName() {
+        return profileName;
+    }
+
+    public PageLoadStrategy pageLoadStrategy() {
+        return pageLoadStrategy;
+    }
+
+    // Lean profiles start at a fixed size instead
+    public boolean maximize() {
+        return !lean;
+    }
+
+    void apply(ChromiumOptions<?> options, String browser) {
+        options.setPageLoadStrategy(pageLoadStrategy);
+        if (!lean) return;
+        options.addArguments(
+                "--disable-extensions",
+                "--disable-background-networking",
+                "--disable-component-update",
+                "--disable-default-apps",
+                "--disable-sync",
+                "--no-first-run",
+                "--disable-gpu",
+                "--window-size=" + WIDTH + "," + HEIGHT,
+                "--disk-cache-dir=" + cacheDirectory(browser));
+        options.setExperimentalOption("prefs", Map.of("profile.managed_default_content_settings.images", 2));
+    }
+
+    void apply(FirefoxOptions options) {
+        options.setPageLoadStrategy(pageLoadStrategy);
+        if (!lean) return;
+        options.addArguments("--width=" + WIDTH, "--height=" + HEIGHT);
+        options.addPreference("permissions.default.image", 2);
+        options.addPreference("extensions.enabledScopes", 0);
+        options.addPreference("app.update.auto", false);
+        options.addPreference("browser.safebrowsing.malware.enabled", false);
+        options.addPreference("browser.safebrowsing.phishing.enabled", false);
+        options.addPreference("datareporting.policy.dataSubmissionEnabled", false);
+        options.addPreference("network.prefetch-next", false);
+        options.addPreference("layers.acceleration.disabled", true);
+        options.addPreference("browser.cache.disk.parent_directory", cacheDirectory("firefox"));
+    }
+
+    private static String cacheDirectory(String browser) {
+        String configured = TestConstants.PROFILE_CACHE_DIR;
+        String root = configured != null && !configured.trim().isEmpty()
+                ? configured.trim()
+                : System.getProperty("java.io.tmpdir") + File.separator + "automation-browser-cache";
+        return root + File.separator + browser;
+    }
+}
@@ -0,0 +1,133 @@
+package utils.driver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Finds windows by title without switching through all of them. Chrome and Edge list
+ * the title of every page in one CDP Target.getTargets call (a page's target id is its
+ * window handle). Other browsers keep a handle to title map per driver: a window is
+ * visited once when it first appears, and after that one known window per lookup is
+ * visited again so a changed title is noticed. The map follows the handles passed in,
+ * so closed windows drop out.
+ *
+ * A lookup that does not find the title leaves the driver on the window it was on.
+ *
+ * Target.getTargets is asked again on every lookup rather than kept current through
+ * Target.targetCreated / targetInfoChanged events: the driver's one DevTools
+ * connection belongs to PageReadiness, which re-attaches it per window and clears its
+ * listeners. The call is a single round trip whatever the number of windows.
+ */
+public final class WindowRegistry {
+    private static final Logger logger = LogManager.getLogger(WindowRegistry.class);
+
+    private static final Map<WebDriver, LinkedHashMap<String, String>> titles = new WeakHashMap<>();
+
+    private WindowRegistry() {
+    }
+
+    /**
+     * The driver's window handles. A session attached to a shared browser
+     * (BROWSER_ISOLATION=context) is listed every context's windows, so only those
+     * of its own context are kept.
+     */
+    public static Set<String> handles(WebDriver driver) {
+        Set<String> handles = driver.getWindowHandles();
+        String context = BrowserContexts.contextOf(driver);
+        if (context == null || !(driver instanceof HasCdp cdp)) return handles;
+        Object targets = cdp.executeCdpCommand("Target.getTargets", Map.of()).get("targetInfos");
+        if (!(targets instanceof List<?> list)) return handles;
+        Set<String> own = new LinkedHashSet<>();
+        for (Object target : list) {
+            if (target instanceof Map<?, ?> info && context.equals(info.get("browserContextId"))
+                    && handles.contains(info.get("targetId"))) {
+                own.add((String) info.get("targetId"));
+            }
+        }
+        return own;
+    }
+
+    // handles are the driver's current window handles, see handles(WebDriver)
+    public static boolean switchToTitle(WebDriver driver, Set<String> handles, String title) {
+        if (driver instanceof HasCdp cdp) {
+            try {
+                String handle = findByTarget(cdp, BrowserContexts.contextOf(driver), handles, title);
+                if (handle == null) return false;
+                driver.switchTo().window(handle);
+                return true;
+            } catch (WebDriverException e) {
+                logger.debug("Target.getTargets unavailable, looking windows up one by one: {}", e.getMessage());
+            }
+        }
+        return switchByProbing(driver, handles, title);
+    }
+
+    // context is the driver's browser context in a shared browser, null for a browser of its own
+    private static String findByTarget(HasCdp cdp, String context, Set<String> handles, String title) {
+        Object targets = cdp.executeCdpCommand("Target.getTargets", Map.of()).get("targetInfos");
+        if (!(targets instanceof List<?> list)) return null;
+        for (Object target : list) {
+            if (target instanceof Map<?, ?> info && "page".equals(info.get("type"))
+                    && (context == null || context.equals(info.get("browserContextId")))
+                    && handles.contains(info.get("targetId")) && title.equals(info.get("title"))) {
+                return (String) info.get("targetId");
+            }
+        }
+        return null;
+    }
+
+    private static boolean switchByProbing(WebDriver driver, Set<String> handles, String title) {
+        LinkedHashMap<String, String> known;
+        synchronized (titles) {
+            known = titles.computeIfAbsent(driver, d -> new LinkedHashMap<>());
+        }
+        synchronized (known) {
+            known.keySet().retainAll(handles);
+            String current;
+            try {
+                current = driver.getWindowHandle();
+            } catch (NoSuchWindowException e) {
+                // The window the driver was on has just been closed, so there is none to go back to
+                current = null;
+            }
+            String focused = current;
+            // Windows that had the title last time, then windows never seen, then the longest unchecked one
+            for (String handle : List.copyOf(known.keySet())) {
+                if (!title.equals(known.get(handle))) continue;
+                focused = probe(driver, known, handle, focused);
+                if (title.equals(known.get(handle))) return true;
+            }
+            for (String handle : handles) {
+                if (known.containsKey(handle)) continue;
+                focused = probe(driver, known, handle, focused);
+                if (title.equals(known.get(handle))) return true;
+            }
+            if (!known.isEmpty()) {
+                String oldest = known.keySet().iterator().next();
+                focused = probe(driver, known, oldest, focused);
+                if (title.equals(known.get(oldest))) return true;
+            }
+            if (current != null && !current.equals(focused)) driver.switchTo().window(current);
+            return false;
+        }
+    }
+
+    // Reads the title of the window, which moves to the end of the map; returns the window now focused
+    private static String probe(WebDriver driver, LinkedHashMap<String, String> known, String handle, String focused) {
+        if (!handle.equals(focused)) driver.switchTo().window(handle);
+        known.remove(handle);
+        known.put(handle, driver.getTitle());
+        return handle;
+    }
+}
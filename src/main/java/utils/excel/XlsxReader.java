@@ -0,0 +1,342 @@
+package utils.excel;
+
+import utils.csv.CsvRow;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Streaming XLSX reader. Sheets are pulled through StAX one row at a time, so memory
+ * stays flat however many rows a sheet has; only the shared-string table is held,
+ * since cells refer to it by position. Cells come back as text the way Excel stores
+ * them: numbers and dates as their raw stored value, booleans as TRUE / FALSE,
+ * formulas as their cached result. Missing cells read as "" and missing rows as
+ * empty rows, so row i is always spreadsheet row i + 1.
+ */
+public final class XlsxReader implements Closeable {
+    private static final String RELATIONSHIPS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private final ZipFile zip;
+    private final XMLInputFactory xmlFactory = XMLInputFactory.newFactory();
+    private final Map<String, String> sheets = new LinkedHashMap<>();
+    private final String sharedStringsPath;
+    private List<String> sharedStrings;
+
+    private XlsxReader(Path file) throws IOException {
+        xmlFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        zip = new ZipFile(file.toFile());
+        try {
+            Map<String, String> targets = new HashMap<>();
+            String shared = "xl/sharedStrings.xml";
+            XMLStreamReader xml = open("xl/_rels/workbook.xml.rels");
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("Relationship")) {
+                        String target = partName(xml.getAttributeValue(null, "Target"));
+                        targets.put(xml.getAttributeValue(null, "Id"), target);
+                        if (xml.getAttributeValue(null, "Type").endsWith("/sharedStrings")) shared = target;
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+            sharedStringsPath = shared;
+
+            xml = open("xl/workbook.xml");
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("sheet")) {
+                        sheets.put(xml.getAttributeValue(null, "name"), targets.get(xml.getAttributeValue(RELATIONSHIPS, "id")));
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            zip.close();
+            throw new IOException("Not a valid XLSX workbook: " + file, e);
+        } catch (IOException | RuntimeException e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    public static XlsxReader open(Path file) throws IOException {
+        return new XlsxReader(file);
+    }
+
+    public List<String> sheetNames() {
+        return new ArrayList<>(sheets.keySet());
+    }
+
+    // Rows of the first sheet
+    public Stream<CsvRow> rows() throws IOException {
+        if (sheets.isEmpty()) throw new IOException("Workbook has no sheets");
+        return rows(sheets.keySet().iterator().next());
+    }
+
+    // Rows of the named sheet; the stream must be closed, or the reader with it
+    public Stream<CsvRow> rows(String sheetName) throws IOException {
+        String part = sheets.get(sheetName);
+        if (part == null) throw new IllegalArgumentException("Sheet not found: " + sheetName);
+        if (sharedStrings == null) sharedStrings = loadSharedStrings();
+        try {
+            SheetIterator rows = new SheetIterator(open(part), sharedStrings);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(rows::close);
+        } catch (XMLStreamException e) {
+            throw new IOException("Cannot read sheet " + sheetName, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+    // Closing the returned reader also closes the zip entry stream under it
+    private XMLStreamReader open(String part) throws IOException, XMLStreamException {
+        ZipEntry entry = zip.getEntry(part);
+        if (entry == null) throw new IOException("Missing workbook part: " + part);
+        InputStream in = zip.getInputStream(entry);
+        XMLStreamReader xml;
+        synchronized (xmlFactory) {
+            xml = xmlFactory.createXMLStreamReader(in, "UTF-8");
+        }
+        return new StreamReaderDelegate(xml) {
+            @Override
+            public void close() throws XMLStreamException {
+                try {
+                    super.close();
+                } finally {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        // the zip file is still open, nothing to leak
+                    }
+                }
+            }
+        };
+    }
+
+    // Relationship targets are relative to xl/ unless they start with /
+    private static String partName(String target) {
+        return target.startsWith("/") ? target.substring(1) : "xl/" + target;
+    }
+
+    private List<String> loadSharedStrings() throws IOException {
+        List<String> strings = new ArrayList<>();
+        if (zip.getEntry(sharedStringsPath) == null) return strings;
+        try {
+            XMLStreamReader xml = open(sharedStringsPath);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("si")) {
+                        strings.add(richText(xml, "si"));
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Cannot read shared strings", e);
+        }
+        return strings;
+    }
+
+    // Text of all <t> runs up to the closing element, skipping phonetic runs
+    private static String richText(XMLStreamReader xml, String element) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int phonetic = 0;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = xml.getLocalName();
+                if (name.equals("rPh")) phonetic++;
+                else if (name.equals("t") && phonetic == 0) text.append(xml.getElementText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String name = xml.getLocalName();
+                if (name.equals("rPh")) phonetic--;
+                else if (name.equals(element)) break;
+            }
+        }
+        return text.toString();
+    }
+
+    // "BC12" -> 54 (0-based column of the reference)
+    static int columnIndex(String reference) {
+        int column = 0;
+        for (int i = 0; i < reference.length(); i++) {
+            char c = reference.charAt(i);
+            if (c < 'A' || c > 'Z') break;
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    static int rowNumber(String reference) {
+        int i = 0;
+        while (i < reference.length() && reference.charAt(i) >= 'A' && reference.charAt(i) <= 'Z') i++;
+        return Integer.parseInt(reference.substring(i));
+    }
+
+    private static final class SheetIterator implements Iterator<CsvRow> {
+        private static final String[] EMPTY = new String[0];
+
+        private final XMLStreamReader xml;
+        private final List<String> sharedStrings;
+        private long index;
+        // The next <row> already read ahead, and the spreadsheet row number it belongs to
+        private String[] pending;
+        private long pendingRow = -1;
+        private boolean finished;
+        private String[] cells = new String[16];
+
+        SheetIterator(XMLStreamReader xml, List<String> sharedStrings) {
+            this.xml = xml;
+            this.sharedStrings = sharedStrings;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pending == null && !finished) readRow();
+            return pending != null;
+        }
+
+        @Override
+        public CsvRow next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String[] values;
+            if (pendingRow > index) {
+                values = EMPTY;
+            } else {
+                values = pending;
+                pending = null;
+            }
+            return new SheetRow(index++, values);
+        }
+
+        private void readRow() {
+            try {
+                while (xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("row")) {
+                        String r = xml.getAttributeValue(null, "r");
+                        pendingRow = r != null ? Long.parseLong(r) - 1 : index;
+                        pending = cells();
+                        return;
+                    }
+                }
+                finished = true;
+                close();
+            } catch (XMLStreamException e) {
+                throw new UncheckedIOException(new IOException("Cannot read sheet row", e));
+            }
+        }
+
+        private String[] cells() throws XMLStreamException {
+            int width = 0;
+            int next = 0;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("row")) break;
+                if (event != XMLStreamConstants.START_ELEMENT || !xml.getLocalName().equals("c")) continue;
+
+                String reference = xml.getAttributeValue(null, "r");
+                int column = reference != null ? columnIndex(reference) : next;
+                String type = xml.getAttributeValue(null, "t");
+                String value = cellValue(type);
+                if (column >= cells.length) cells = Arrays.copyOf(cells, Math.max(column + 1, cells.length * 2));
+                for (int c = width; c < column; c++) cells[c] = "";
+                cells[column] = value;
+                width = Math.max(width, column + 1);
+                next = column + 1;
+            }
+            return Arrays.copyOf(cells, width);
+        }
+
+        private String cellValue(String type) throws XMLStreamException {
+            String raw = null;
+            String inline = null;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if (name.equals("v")) raw = xml.getElementText();
+                    else if (name.equals("is")) inline = richText(xml, "is");
+                } else if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("c")) {
+                    break;
+                }
+            }
+            if ("inlineStr".equals(type)) return inline != null ? inline : "";
+            if (raw == null) return "";
+            if ("s".equals(type)) {
+                int i = Integer.parseInt(raw.trim());
+                return i >= 0 && i < sharedStrings.size() ? sharedStrings.get(i) : "";
+            }
+            if ("b".equals(type)) return raw.trim().equals("1") ? "TRUE" : "FALSE";
+            return raw;
+        }
+
+        void close() {
+            try {
+                xml.close();
+            } catch (XMLStreamException e) {
+                // nothing left to read
+            }
+        }
+    }
+
+    private static final class SheetRow implements CsvRow {
+        private final long index;
+        private final String[] values;
+
+        SheetRow(long index, String[] values) {
+            this.index = index;
+            this.values = values;
+        }
+
+        @Override
+        public long index() {
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public String get(int column) {
+            return values[column];
+        }
+
+        @Override
+        public String[] toArray() {
+            return values.clone();
+        }
+    }
+}
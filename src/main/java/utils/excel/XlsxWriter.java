@@ -0,0 +1,262 @@
+package utils.excel;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streaming XLSX writer. Rows are collected in a window of at most rowWindow rows and
+ * then serialised straight into the zip, so memory is bounded by the window whatever
+ * the sheet size. Text goes in as inline strings; values that are plain decimal
+ * numbers are stored as numbers. The workbook is built in a temp file next to the
+ * target and moved into place by {@link #commit()}, so readers never see half a file;
+ * closing without a commit, e.g. after an exception, discards it and leaves the target
+ * as it was.
+ */
+public final class XlsxWriter implements Closeable {
+    public static final int DEFAULT_ROW_WINDOW = 1000;
+
+    private static final String MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String RELATIONSHIPS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    // Plain decimals without leading or trailing fraction zeros; see isNumber for the digit limit
+    private static final Pattern NUMBER = Pattern.compile("(?!-0$)-?(0|[1-9][0-9]*)(\\.[0-9]*[1-9])?");
+    // Excel keeps 15 significant digits, anything longer (IDs, card numbers) would come back changed
+    private static final int MAX_DIGITS = 15;
+    private static final Pattern INVALID_SHEET_NAME = Pattern.compile("[\\[\\]:*?/\\\\]");
+
+    private final Path target;
+    private final Path temp;
+    private final int rowWindow;
+    private final ZipOutputStream zip;
+    private final Writer out;
+    private final List<String> sheetNames = new ArrayList<>();
+    private final List<String[]> window = new ArrayList<>();
+    private boolean sheetOpen;
+    private long rowNumber;
+    private boolean committed;
+    private boolean closed;
+
+    private XlsxWriter(Path target, int rowWindow) throws IOException {
+        if (rowWindow < 1) throw new IllegalArgumentException("rowWindow must be at least 1");
+        this.target = target.toAbsolutePath();
+        this.rowWindow = rowWindow;
+        // Not Files.createTempFile, which makes the file owner-only: the workbook gets the default
+        // permissions of a new file, or those of the file it replaces (see commit)
+        temp = this.target.resolveSibling("." + this.target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        zip = new ZipOutputStream(Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+        out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    public static XlsxWriter create(Path file) throws IOException {
+        return new XlsxWriter(file, DEFAULT_ROW_WINDOW);
+    }
+
+    public static XlsxWriter create(Path file, int rowWindow) throws IOException {
+        return new XlsxWriter(file, rowWindow);
+    }
+
+    // Starts the next sheet; rows written before the first call go to "Sheet1"
+    public XlsxWriter sheet(String name) throws IOException {
+        if (name.isEmpty() || name.length() > 31 || INVALID_SHEET_NAME.matcher(name).find()) {
+            throw new IllegalArgumentException("Invalid sheet name: " + name);
+        }
+        for (String existing : sheetNames) {
+            if (existing.equalsIgnoreCase(name)) throw new IllegalArgumentException("Duplicate sheet name: " + name);
+        }
+        endSheet();
+        sheetNames.add(name);
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml"));
+        out.write(HEADER + "<worksheet xmlns=\"" + MAIN + "\"><sheetData>");
+        sheetOpen = true;
+        rowNumber = 0;
+        return this;
+    }
+
+    public void writeRow(String... values) throws IOException {
+        if (!sheetOpen) sheet("Sheet" + (sheetNames.size() + 1));
+        window.add(values);
+        if (window.size() >= rowWindow) flushWindow();
+    }
+
+    public void writeRow(List<String> values) throws IOException {
+        writeRow(values.toArray(new String[0]));
+    }
+
+    public void writeRows(List<String[]> rows) throws IOException {
+        for (String[] row : rows) writeRow(row);
+    }
+
+    // Finishes the workbook and moves it over the target; call once every row is written
+    public void commit() throws IOException {
+        if (closed) throw new IllegalStateException("Workbook writer is closed");
+        if (sheetNames.isEmpty()) sheet("Sheet1");
+        endSheet();
+        writePackageParts();
+        out.close();
+        if (Files.exists(target)) copyPermissions(target, temp);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+        close();
+    }
+
+    // Without a commit the half-written workbook is discarded and the target left untouched
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (committed) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            // the temp file is discarded anyway
+        }
+        Files.deleteIfExists(temp);
+    }
+
+    private static void copyPermissions(Path source, Path temp) throws IOException {
+        PosixFileAttributeView posix = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+        if (posix != null) Files.setPosixFilePermissions(temp, posix.readAttributes().permissions());
+    }
+
+    // Written as a number only when Excel reads back exactly the same text
+    static boolean isNumber(String value) {
+        if (!NUMBER.matcher(value).matches()) return false;
+        int digits = 0;
+        boolean leading = true;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9' || (leading && c == '0')) continue;
+            leading = false;
+            digits++;
+        }
+        return digits <= MAX_DIGITS;
+    }
+
+    private void flushWindow() throws IOException {
+        for (String[] row : window) {
+            rowNumber++;
+            out.write("<row r=\"" + rowNumber + "\">");
+            for (int c = 0; c < row.length; c++) {
+                String value = row[c];
+                if (value == null || value.isEmpty()) continue;
+                String reference = columnName(c) + rowNumber;
+                if (isNumber(value)) {
+                    out.write("<c r=\"" + reference + "\"><v>" + value + "</v></c>");
+                } else {
+                    boolean preserve = Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1));
+                    out.write("<c r=\"" + reference + "\" t=\"inlineStr\"><is><t" + (preserve ? " xml:space=\"preserve\">" : ">"));
+                    escape(value);
+                    out.write("</t></is></c>");
+                }
+            }
+            out.write("</row>");
+        }
+        window.clear();
+    }
+
+    private void endSheet() throws IOException {
+        if (!sheetOpen) return;
+        flushWindow();
+        out.write("</sheetData></worksheet>");
+        out.flush();
+        zip.closeEntry();
+        sheetOpen = false;
+    }
+
+    private void writePackageParts() throws IOException {
+        StringBuilder types = new StringBuilder(HEADER)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        StringBuilder workbook = new StringBuilder(HEADER)
+                .append("<workbook xmlns=\"").append(MAIN).append("\" xmlns:r=\"").append(RELATIONSHIPS).append("\"><sheets>");
+        StringBuilder workbookRels = new StringBuilder(HEADER)
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            types.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            workbook.append("<sheet name=\"").append(escapeAttribute(sheetNames.get(i - 1)))
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+            workbookRels.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"").append(RELATIONSHIPS).append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        types.append("</Types>");
+        workbook.append("</sheets></workbook>");
+        workbookRels.append("<Relationship Id=\"rId").append(sheetNames.size() + 1)
+                .append("\" Type=\"").append(RELATIONSHIPS).append("/styles\" Target=\"styles.xml\"/></Relationships>");
+
+        entry("[Content_Types].xml", types.toString());
+        entry("_rels/.rels", HEADER
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + RELATIONSHIPS + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        entry("xl/workbook.xml", workbook.toString());
+        entry("xl/_rels/workbook.xml.rels", workbookRels.toString());
+        entry("xl/styles.xml", HEADER
+                + "<styleSheet xmlns=\"" + MAIN + "\">"
+                + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                + "<cellXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/></cellXfs>"
+                + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+                + "</styleSheet>");
+    }
+
+    private void entry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.flush();
+        zip.closeEntry();
+    }
+
+    // Drops characters XML 1.0 cannot carry
+    private void escape(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.write("&amp;");
+                case '<' -> out.write("&lt;");
+                case '>' -> out.write("&gt;");
+                default -> {
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') out.write(c);
+                }
+            }
+        }
+    }
+
+    private static String escapeAttribute(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+    }
+
+    // 0 -> A, 25 -> Z, 26 -> AA
+    static String columnName(int column) {
+        StringBuilder name = new StringBuilder();
+        for (int c = column + 1; c > 0; c = (c - 1) / 26) {
+            name.insert(0, (char) ('A' + (c - 1) % 26));
+        }
+        return name.toString();
+    }
+}
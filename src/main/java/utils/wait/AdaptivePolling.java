@@ -0,0 +1,107 @@
+package utils.wait;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.Sleeper;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import utils.TestConstants;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * WebDriverWaits that poll quickly at first and back off, instead of checking every
+ * 500 ms. The first interval of a condition ("visibility", "urlContains", ...) is an
+ * eighth of how long that condition has typically taken to succeed in this run, so a
+ * spinner that usually clears in 200 ms is checked every 25 ms while a page that
+ * takes 4 s is not asked 100 times. Each further interval is 1.5 times the previous
+ * one, all within WAIT_POLL_MIN_MS and WAIT_POLL_MAX_MS; the last sleep is cut short
+ * so the condition is still checked at the deadline. The backoff starts over on every
+ * until(), so a wait can be reused.
+ *
+ * WAIT_POLLING=fixed returns plain WebDriverWaits.
+ */
+public final class AdaptivePolling {
+    private static final boolean ENABLED = !"fixed".equalsIgnoreCase(trimmed(TestConstants.WAIT_POLLING));
+    private static final long MIN_NANOS = Duration.ofMillis(parse(TestConstants.WAIT_POLL_MIN_MS, 10)).toNanos();
+    private static final long MAX_NANOS = Math.max(MIN_NANOS, Duration.ofMillis(parse(TestConstants.WAIT_POLL_MAX_MS, 500)).toNanos());
+    private static final double BACKOFF = 1.5;
+    // Weight of the newest success in the running average
+    private static final double WEIGHT = 0.2;
+    // First interval before a condition has any history
+    private static final long UNKNOWN_NANOS = Duration.ofMillis(25).toNanos();
+
+    private static final ConcurrentHashMap<String, Double> typicalNanos = new ConcurrentHashMap<>();
+
+    private AdaptivePolling() {
+    }
+
+    public static WebDriverWait wait(WebDriver driver, Duration timeout, String condition) {
+        if (!ENABLED) return new WebDriverWait(driver, timeout);
+        return new Wait(driver, timeout, condition);
+    }
+
+    // Updates the typical time to success of the condition
+    public static void record(String condition, long elapsedNanos) {
+        typicalNanos.merge(condition, (double) elapsedNanos, (typical, latest) -> typical + WEIGHT * (latest - typical));
+    }
+
+    public static Duration initialInterval(String condition) {
+        Double typical = typicalNanos.get(condition);
+        long nanos = typical != null ? (long) (typical / 8) : UNKNOWN_NANOS;
+        return Duration.ofNanos(Math.min(MAX_NANOS, Math.max(MIN_NANOS, nanos)));
+    }
+
+    private static final class Wait extends WebDriverWait {
+        private final String condition;
+        private final Duration timeout;
+        private final Backoff backoff;
+
+        Wait(WebDriver driver, Duration timeout, String condition) {
+            this(driver, timeout, condition, new Backoff());
+        }
+
+        private Wait(WebDriver driver, Duration timeout, String condition, Backoff backoff) {
+            super(driver, timeout, Duration.ofNanos(MAX_NANOS), Clock.systemDefaultZone(), backoff);
+            this.condition = condition;
+            this.timeout = timeout;
+            this.backoff = backoff;
+        }
+
+        @Override
+        public <V> V until(Function<? super WebDriver, V> isTrue) {
+            long start = System.nanoTime();
+            backoff.reset(initialInterval(condition).toNanos(), start + timeout.toNanos());
+            V value = super.until(isTrue);
+            record(condition, System.nanoTime() - start);
+            return value;
+        }
+    }
+
+    // Ignores the fixed interval FluentWait passes in
+    private static final class Backoff implements Sleeper {
+        private long deadline;
+        private long next;
+
+        void reset(long initial, long deadline) {
+            this.next = initial;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void sleep(Duration ignored) throws InterruptedException {
+            long nanos = Math.min(next, deadline - System.nanoTime());
+            next = Math.min(MAX_NANOS, (long) (next * BACKOFF));
+            if (nanos > 0) Thread.sleep(Duration.ofNanos(nanos));
+        }
+    }
+
+    private static String trimmed(String value) {
+        return value != null ? value.trim() : null;
+    }
+
+    private static int parse(String value, int defaultValue) {
+        return value == null || value.trim().isEmpty() ? defaultValue : Integer.parseInt(value.trim());
+    }
+}
@@ -0,0 +1,258 @@
+package utils.wait;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import utils.TestConstants;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Waits the browser answers itself, picked with WAIT_BACKEND=observer. One
+ * executeAsyncScript checks the condition, then re-checks it on every DOM mutation
+ * (and every 100 ms for changes no mutation reports, such as layout, CSS animations
+ * or a ticked checkbox) and returns as soon as it holds or the timeout passes. A wait
+ * costs the same few WebDriver commands however long it takes, instead of one or more
+ * per poll. The session's script timeout is raised for the script when the wait needs
+ * more time, and put back afterwards, so pooled sessions keep their own.
+ *
+ * Covers the element and locator conditions of WaitUtility, and WaitConditions
+ * combined with anyOf/allOf, which are checked in the page with either backend.
+ * Visibility is judged by
+ * the element's box and checkVisibility(), which is close to but not exactly
+ * Selenium's isDisplayed(). A navigation during the wait ends the script; until()
+ * then returns false and the caller polls for the rest of the timeout.
+ */
+public final class DomWait {
+    private static final Logger logger = LogManager.getLogger(DomWait.class);
+
+    private static final boolean ENABLED = "observer".equalsIgnoreCase(
+            TestConstants.WAIT_BACKEND != null ? TestConstants.WAIT_BACKEND.trim() : "poll");
+    private static final Set<String> CONDITIONS = Set.of(
+            "visibility", "invisibility", "clickability", "presence",
+            "textToBePresent", "textToBeAbsent", "attributeToBe", "attributeContains",
+            "elementToBeSelected", "elementToBeDeselected",
+            "numberOfElementsToBe", "numberOfElementsToBeMoreThan", "numberOfElementsToBeLessThan");
+    // Headroom over the wait so the page always answers before the driver gives up on the script
+    private static final Duration SCRIPT_MARGIN = Duration.ofSeconds(5);
+
+    // Shared by both scripts: test(node) gives the label of a node that holds, or null
+    private static final String CHECKS = """
+            var STALE = {};
+            function find(c) {
+              var selector = c.selector;
+              switch (c.using) {
+                case 'css selector': return document.querySelectorAll(selector);
+                case 'id': return document.querySelectorAll('#' + CSS.escape(selector));
+                case 'name': return document.querySelectorAll('[name="' + CSS.escape(selector) + '"]');
+                case 'class name': return document.getElementsByClassName(selector);
+                case 'tag name': return document.getElementsByTagName(selector);
+                case 'xpath':
+                  var r = document.evaluate(selector, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null), found = [];
+                  for (var i = 0; i < r.snapshotLength; i++) found.push(r.snapshotItem(i));
+                  return found;
+                case 'link text':
+                case 'partial link text':
+                  return Array.prototype.filter.call(document.getElementsByTagName('a'), function (link) {
+                    var text = link.innerText.trim();
+                    return c.using === 'link text' ? text === selector : text.indexOf(selector) !== -1;
+                  });
+              }
+              throw new Error('Unsupported locator: ' + c.using);
+            }
+            function visible(e) {
+              var box = e.getBoundingClientRect();
+              if (box.width <= 0 && box.height <= 0) return false;
+              if (e.checkVisibility) return e.checkVisibility({opacityProperty: true, visibilityProperty: true});
+              var style = getComputedStyle(e);
+              return style.visibility !== 'hidden' && style.opacity !== '0';
+            }
+            function attribute(e, name) {
+              var value = e[name];
+              if (value === undefined || value === null || typeof value === 'object' || typeof value === 'function') value = e.getAttribute(name);
+              if (value === null || value === '') value = getComputedStyle(e).getPropertyValue(name);
+              return value === null ? null : String(value);
+            }
+            function check(c) {
+              var element = c.element, a = c.a, b = c.b;
+              if (element && !element.isConnected) {
+                if (c.condition === 'invisibility') return true;
+                throw STALE;
+              }
+              switch (c.condition) {
+                case 'visibility': return visible(element);
+                case 'invisibility': return !visible(element);
+                case 'clickability': return visible(element) && !element.disabled;
+                case 'textToBePresent': return element.innerText.indexOf(a) !== -1;
+                case 'textToBeAbsent': return element.innerText.indexOf(a) === -1;
+                case 'attributeToBe': return attribute(element, a) === b;
+                case 'attributeContains': var value = attribute(element, a); return value !== null && value.indexOf(b) !== -1;
+                case 'elementToBeSelected': return !!(element.selected || element.checked);
+                case 'elementToBeDeselected': return !(element.selected || element.checked);
+                case 'presence': return find(c).length > 0;
+                case 'numberOfElementsToBe': return find(c).length === a;
+                case 'numberOfElementsToBeMoreThan': return find(c).length > a;
+                case 'numberOfElementsToBeLessThan': return find(c).length < a;
+                case 'urlToBe': return location.href === a;
+                case 'urlContains': return location.href.indexOf(a) !== -1;
+                case 'titleToBe': return document.title === a;
+                case 'titleContains': return document.title.indexOf(a) !== -1;
+              }
+              throw new Error('Unsupported condition: ' + c.condition);
+            }
+            // Strict: a detached element fails the wait, otherwise that condition just does not hold yet
+            function test(node, strict) {
+              if (node.of) {
+                for (var i = 0; i < node.of.length; i++) {
+                  var fired = test(node.of[i], strict);
+                  if (node.mode === 'any' && fired !== null) return fired;
+                  if (node.mode === 'all' && fired === null) return null;
+                }
+                return node.mode === 'all' ? node.label : null;
+              }
+              try {
+                return check(node) ? node.label : null;
+              } catch (e) {
+                if (e === STALE && !strict) return null;
+                throw e;
+              }
+            }
+            """;
+
+    private static final String OBSERVE = CHECKS + """
+            var node = arguments[0], timeout = arguments[1], strict = arguments[2], done = arguments[arguments.length - 1];
+            var finished = false, observer, ticker, timer;
+            function finish(result) {
+              if (finished) return;
+              finished = true;
+              if (observer) observer.disconnect();
+              clearInterval(ticker);
+              clearTimeout(timer);
+              done(result);
+            }
+            function evaluate() {
+              try {
+                var fired = test(node, strict);
+                if (fired !== null) finish({state: 'met', branch: fired});
+              } catch (e) {
+                finish(e === STALE ? {state: 'stale'} : {state: 'error', message: String(e && e.message || e)});
+              }
+            }
+            evaluate();
+            if (finished) return;
+            observer = new MutationObserver(evaluate);
+            observer.observe(document, {subtree: true, childList: true, attributes: true, characterData: true});
+            ticker = setInterval(evaluate, 100);
+            timer = setTimeout(function () { finish({state: 'timeout'}); }, timeout);
+            """;
+
+    private static final String POLL = CHECKS + """
+            return test(arguments[0], false);
+            """;
+
+    private DomWait() {
+    }
+
+    public static boolean supports(WebDriver driver, String condition) {
+        return ENABLED && driver instanceof JavascriptExecutor && CONDITIONS.contains(condition);
+    }
+
+    /**
+     * Waits in the browser until the condition holds for the target, a WebElement or a By.
+     * expected are the condition's values: the text, the attribute name and value, or the
+     * element count. Returns false when the browser could not finish the wait.
+     */
+    public static boolean until(WebDriver driver, Duration timeout, String condition, Object target, Object... expected) {
+        Map<String, Object> node = new HashMap<>();
+        node.put("label", condition);
+        node.put("condition", condition);
+        if (target instanceof WebElement) node.put("element", target);
+        if (target instanceof By by) {
+            if (!(by instanceof By.Remotable remotable)) return false;
+            node.put("using", remotable.getRemoteParameters().using());
+            node.put("selector", remotable.getRemoteParameters().value());
+        }
+        if (expected.length > 0) node.put("a", expected[0]);
+        if (expected.length > 1) node.put("b", expected[1]);
+        try {
+            return observe(driver, timeout, node, true, condition) != null;
+        } catch (StaleElementReferenceException e) {
+            if (condition.equals("invisibility")) return true;
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until the condition holds and returns the label of the branch that fired.
+     * The whole condition is checked with one script per poll, or by a single observer
+     * script with WAIT_BACKEND=observer. A detached element only makes its own branch
+     * false (true for invisibility).
+     */
+    public static String until(WebDriver driver, Duration timeout, WaitCondition condition) {
+        if (!(driver instanceof JavascriptExecutor executor)) {
+            throw new IllegalArgumentException("Combined waits need a driver that runs JavaScript");
+        }
+        Map<String, Object> node = condition.toScript();
+        long start = System.nanoTime();
+        if (ENABLED) {
+            String fired = observe(driver, timeout, node, false, condition.label());
+            if (fired != null) return fired;
+        }
+        Duration remaining = timeout.minusNanos(System.nanoTime() - start);
+        return AdaptivePolling.wait(driver, remaining.isNegative() ? Duration.ZERO : remaining, "composite")
+                .withMessage("waiting for " + condition.label())
+                .until(d -> (String) executor.executeScript(POLL, node));
+    }
+
+    // The fired label, or null when the browser could not finish the wait
+    private static String observe(WebDriver driver, Duration timeout, Map<String, Object> node, boolean strict, String description) {
+        Object result;
+        Duration previous = null;
+        try {
+            previous = raiseScriptTimeout(driver, timeout.plus(SCRIPT_MARGIN));
+            result = ((JavascriptExecutor) driver).executeAsyncScript(OBSERVE, node, timeout.toMillis(), strict);
+        } catch (StaleElementReferenceException e) {
+            throw e;
+        } catch (WebDriverException e) {
+            logger.debug("Observer wait for {} ended early, polling instead: {}", description, e.getMessage());
+            return null;
+        } finally {
+            if (previous != null) restoreScriptTimeout(driver, previous);
+        }
+        Map<?, ?> outcome = result instanceof Map<?, ?> map ? map : Map.of();
+        Object state = outcome.get("state");
+        if ("met".equals(state)) return String.valueOf(outcome.get("branch"));
+        if ("timeout".equals(state)) {
+            throw new TimeoutException("Expected condition failed: waiting for " + description
+                    + " (tried for " + timeout.getSeconds() + " second(s) with a DOM observer)");
+        }
+        if ("stale".equals(state)) throw new StaleElementReferenceException("Element is no longer attached to the DOM");
+        logger.debug("Observer wait for {} could not run, polling instead: {}", description, outcome.get("message"));
+        return null;
+    }
+
+    // The timeout to put back, or null when the session's own is long enough
+    private static Duration raiseScriptTimeout(WebDriver driver, Duration needed) {
+        Duration current = driver.manage().timeouts().getScriptTimeout();
+        if (current.compareTo(needed) >= 0) return null;
+        driver.manage().timeouts().scriptTimeout(needed);
+        return current;
+    }
+
+    private static void restoreScriptTimeout(WebDriver driver, Duration previous) {
+        try {
+            driver.manage().timeouts().scriptTimeout(previous);
+        } catch (WebDriverException e) {
+            logger.warn("Could not restore the script timeout to {}: {}", previous, e.getMessage());
+        }
+    }
+}
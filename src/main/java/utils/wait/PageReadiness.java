@@ -0,0 +1,225 @@
+package utils.wait;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Knows when a page has settled, for single-page apps where document.readyState says
+ * little. Network idle means no request in flight for the quiet period. On Chrome and
+ * Edge requests are followed through CDP Network events, so images, scripts and
+ * fetches count from the first byte; other browsers get a fetch/XHR counter injected
+ * into the page, which only sees requests made after the first wait on that document.
+ * WebSockets, EventSources and requests open longer than 10 s (long polls) are ignored.
+ *
+ * A stable page is also readyState complete, without DOM mutations for the quiet
+ * period, without running finite CSS/Web animations, and idle for Angular, AngularJS
+ * and jQuery when the page uses them. Each poll is one executeScript.
+ *
+ * The CDP session follows the window the driver is on when the wait starts.
+ */
+public final class PageReadiness {
+    private static final Logger logger = LogManager.getLogger(PageReadiness.class);
+
+    private static final long LONG_REQUEST_NANOS = Duration.ofSeconds(10).toNanos();
+    private static final Set<String> IGNORED_TYPES = Set.of("WebSocket", "EventSource");
+
+    // Installs itself once per document; a new document starts its quiet periods from zero
+    private static final String SHIM = """
+            (function () {
+              if (window.__pageReadiness) return;
+              var state = window.__pageReadiness = {inflight: 0, network: performance.now(), dom: performance.now()};
+              function begin() { state.inflight++; state.network = performance.now(); }
+              function end() { state.inflight = Math.max(0, state.inflight - 1); state.network = performance.now(); }
+              if (window.fetch) {
+                var fetch = window.fetch;
+                window.fetch = function () {
+                  begin();
+                  try {
+                    return fetch.apply(this, arguments).finally(end);
+                  } catch (e) {
+                    end();
+                    throw e;
+                  }
+                };
+              }
+              var send = XMLHttpRequest.prototype.send;
+              XMLHttpRequest.prototype.send = function () {
+                begin();
+                this.addEventListener('loadend', end, {once: true});
+                try {
+                  return send.apply(this, arguments);
+                } catch (e) {
+                  end();
+                  throw e;
+                }
+              };
+              function observe() {
+                new MutationObserver(function () { state.dom = performance.now(); })
+                    .observe(document, {subtree: true, childList: true, attributes: true, characterData: true});
+              }
+              if (document.documentElement) observe();
+              else document.addEventListener('readystatechange', observe, {once: true});
+            })();
+            """;
+
+    private static final String STATE = SHIM + """
+            var state = window.__pageReadiness, now = performance.now(), animations = 0, frameworks = true;
+            if (document.getAnimations) {
+              document.getAnimations().forEach(function (a) {
+                var timing = a.effect && a.effect.getComputedTiming ? a.effect.getComputedTiming() : null;
+                if (a.playState === 'running' && (!timing || timing.iterations !== Infinity)) animations++;
+              });
+            }
+            try {
+              if (window.getAllAngularTestabilities) {
+                frameworks = window.getAllAngularTestabilities().every(function (t) { return t.isStable(); });
+              }
+              if (frameworks && window.angular && window.angular.element) {
+                var injector = window.angular.element(document.body).injector();
+                if (injector) frameworks = injector.get('$http').pendingRequests.length === 0;
+              }
+              if (frameworks && window.jQuery && typeof window.jQuery.active === 'number') frameworks = window.jQuery.active === 0;
+            } catch (e) {
+            }
+            return {
+              readyState: document.readyState,
+              inflight: state.inflight,
+              networkQuietMs: now - state.network,
+              domQuietMs: now - state.dom,
+              animations: animations,
+              frameworksIdle: frameworks
+            };
+            """;
+
+    private static final Map<WebDriver, NetworkMonitor> monitors = new WeakHashMap<>();
+
+    private PageReadiness() {
+    }
+
+    public static void waitForNetworkIdle(WebDriver driver, Duration quiet, Duration timeout) {
+        await(driver, quiet, timeout, false);
+    }
+
+    public static void waitForPageStable(WebDriver driver, Duration quiet, Duration timeout) {
+        await(driver, quiet, timeout, true);
+    }
+
+    private static void await(WebDriver driver, Duration quiet, Duration timeout, boolean stable) {
+        if (!(driver instanceof JavascriptExecutor executor)) {
+            throw new IllegalArgumentException("Page readiness needs a driver that runs JavaScript");
+        }
+        NetworkMonitor monitor = monitor(driver);
+        double quietMs = quiet.toMillis();
+        String[] last = {"not checked yet"};
+        AdaptivePolling.wait(driver, timeout, stable ? "pageStable" : "networkIdle")
+                .withMessage(() -> (stable ? "page to be stable" : "network to be idle") + " for " + quiet.toMillis() + " ms, last seen: " + last[0])
+                .until(d -> {
+                    Map<?, ?> page = (Map<?, ?>) executor.executeScript(STATE);
+                    long inflight;
+                    double networkQuietMs;
+                    if (monitor != null) {
+                        long now = System.nanoTime();
+                        inflight = monitor.inflight(now);
+                        networkQuietMs = monitor.quietNanos(now) / 1_000_000d;
+                    } else {
+                        inflight = ((Number) page.get("inflight")).longValue();
+                        networkQuietMs = ((Number) page.get("networkQuietMs")).doubleValue();
+                    }
+                    last[0] = inflight + " request(s) in flight, network quiet " + (long) networkQuietMs + " ms"
+                            + (stable ? ", " + page : "");
+                    if (inflight > 0 || networkQuietMs < quietMs) return false;
+                    if (!stable) return true;
+                    return "complete".equals(page.get("readyState"))
+                            && ((Number) page.get("domQuietMs")).doubleValue() >= quietMs
+                            && ((Number) page.get("animations")).longValue() == 0
+                            && Boolean.TRUE.equals(page.get("frameworksIdle"));
+                });
+    }
+
+    // The CDP monitor of the driver's current window, or null where the page counter has to do
+    private static NetworkMonitor monitor(WebDriver driver) {
+        if (!(driver instanceof HasDevTools devToolsDriver) || !(driver instanceof HasCdp)) return null;
+        String window = driver.getWindowHandle();
+        synchronized (monitors) {
+            NetworkMonitor monitor = monitors.get(driver);
+            if (monitor != null && monitor.window.equals(window)) return monitor;
+            if (monitor != null) monitor.detach();
+            monitors.remove(driver);
+            try {
+                Optional<DevTools> devTools = devToolsDriver.maybeGetDevTools();
+                if (devTools.isEmpty()) return null;
+                monitor = new NetworkMonitor(devTools.get(), window);
+                // Later documents of this window get the counter before their own scripts run
+                ((HasCdp) driver).executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", Map.of("source", SHIM));
+            } catch (WebDriverException e) {
+                logger.warn("CDP network tracking unavailable, counting fetch/XHR in the page instead: {}", e.getMessage());
+                return null;
+            }
+            monitors.put(driver, monitor);
+            return monitor;
+        }
+    }
+
+    private static final class NetworkMonitor {
+        final DevTools devTools;
+        final String window;
+        // Request id to the time it started
+        final Map<Object, Long> inflight = new ConcurrentHashMap<>();
+        volatile long lastActivity = System.nanoTime();
+
+        NetworkMonitor(DevTools devTools, String window) {
+            this.devTools = devTools;
+            this.window = window;
+            devTools.disconnectSession();
+            devTools.createSession(window);
+            devTools.addListener(event("Network.requestWillBeSent"), params -> {
+                if (!IGNORED_TYPES.contains(params.get("type"))) inflight.put(params.get("requestId"), System.nanoTime());
+                lastActivity = System.nanoTime();
+            });
+            devTools.addListener(event("Network.loadingFinished"), this::finished);
+            devTools.addListener(event("Network.loadingFailed"), this::finished);
+            devTools.send(new Command<>("Network.enable", Map.of()));
+        }
+
+        private void finished(Map<String, Object> params) {
+            inflight.remove(params.get("requestId"));
+            lastActivity = System.nanoTime();
+        }
+
+        long inflight(long now) {
+            return inflight.values().stream().filter(started -> now - started < LONG_REQUEST_NANOS).count();
+        }
+
+        long quietNanos(long now) {
+            return now - lastActivity;
+        }
+
+        void detach() {
+            try {
+                devTools.clearListeners();
+                devTools.disconnectSession();
+            } catch (WebDriverException e) {
+                logger.debug("Could not detach CDP network tracking: {}", e.getMessage());
+            }
+        }
+
+        private static Event<Map<String, Object>> event(String method) {
+            return new Event<>(method, input -> input.read(Map.class));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package utils.wait;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A condition for WaitUtility.waitForAnyOf / waitForAllOf, checked in the page: the
+ * conditions of WaitUtility plus anyOf/allOf to combine them, e.g.
+ *
+ * anyOf(allOf(invisibility(spinner), visibility(table)).named("results"),
+ *       visibility(errorBanner).named("error"))
+ *
+ * The label of a condition (its name unless set with named) tells which branch fired.
+ */
+public final class WaitCondition {
+    private final String condition;
+    private final Object target;
+    private final Object[] expected;
+    private final boolean any;
+    private final List<WaitCondition> of;
+    private final String label;
+
+    private WaitCondition(String condition, Object target, Object[] expected, boolean any, List<WaitCondition> of, String label) {
+        this.condition = condition;
+        this.target = target;
+        this.expected = expected;
+        this.any = any;
+        this.of = of;
+        this.label = label;
+    }
+
+    private static WaitCondition of(String condition, Object target, Object... expected) {
+        return new WaitCondition(condition, target, expected, false, List.of(), condition);
+    }
+
+    public static WaitCondition visibility(WebElement element) {
+        return of("visibility", element);
+    }
+
+    public static WaitCondition invisibility(WebElement element) {
+        return of("invisibility", element);
+    }
+
+    public static WaitCondition clickability(WebElement element) {
+        return of("clickability", element);
+    }
+
+    public static WaitCondition presence(By locator) {
+        return of("presence", locator);
+    }
+
+    public static WaitCondition textToBePresent(WebElement element, String text) {
+        return of("textToBePresent", element, text);
+    }
+
+    public static WaitCondition textToBeAbsent(WebElement element, String text) {
+        return of("textToBeAbsent", element, text);
+    }
+
+    public static WaitCondition attributeToBe(WebElement element, String attribute, String value) {
+        return of("attributeToBe", element, attribute, value);
+    }
+
+    public static WaitCondition attributeContains(WebElement element, String attribute, String value) {
+        return of("attributeContains", element, attribute, value);
+    }
+
+    public static WaitCondition elementToBeSelected(WebElement element) {
+        return of("elementToBeSelected", element);
+    }
+
+    public static WaitCondition elementToBeDeselected(WebElement element) {
+        return of("elementToBeDeselected", element);
+    }
+
+    public static WaitCondition numberOfElementsToBe(By locator, int number) {
+        return of("numberOfElementsToBe", locator, number);
+    }
+
+    public static WaitCondition numberOfElementsToBeMoreThan(By locator, int number) {
+        return of("numberOfElementsToBeMoreThan", locator, number);
+    }
+
+    public static WaitCondition numberOfElementsToBeLessThan(By locator, int number) {
+        return of("numberOfElementsToBeLessThan", locator, number);
+    }
+
+    public static WaitCondition urlToBe(String url) {
+        return of("urlToBe", null, url);
+    }
+
+    public static WaitCondition urlContains(String fraction) {
+        return of("urlContains", null, fraction);
+    }
+
+    public static WaitCondition titleToBe(String title) {
+        return of("titleToBe", null, title);
+    }
+
+    public static WaitCondition titleContains(String titleFragment) {
+        return of("titleContains", null, titleFragment);
+    }
+
+    // Holds as soon as one of the conditions holds; reports the label of that one
+    public static WaitCondition anyOf(WaitCondition... conditions) {
+        return composite(true, conditions);
+    }
+
+    // Holds once all conditions hold at the same time
+    public static WaitCondition allOf(WaitCondition... conditions) {
+        return composite(false, conditions);
+    }
+
+    private static WaitCondition composite(boolean any, WaitCondition... conditions) {
+        if (conditions.length == 0) throw new IllegalArgumentException("No conditions to wait for");
+        List<String> labels = new ArrayList<>();
+        for (WaitCondition condition : conditions) labels.add(condition.label);
+        return new WaitCondition(null, null, null, any, List.of(conditions), String.join(any ? " or " : " and ", labels));
+    }
+
+    public WaitCondition named(String label) {
+        return new WaitCondition(condition, target, expected, any, of, label);
+    }
+
+    public String label() {
+        return label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+
+    // The form the page script reads: condition, element or locator and expected values, or the combined conditions
+    Map<String, Object> toScript() {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("label", label);
+        if (condition == null) {
+            List<Map<String, Object>> children = new ArrayList<>();
+            for (WaitCondition child : of) children.add(child.toScript());
+            node.put("mode", any ? "any" : "all");
+            node.put("of", children);
+            return node;
+        }
+        node.put("condition", condition);
+        if (target instanceof WebElement) node.put("element", target);
+        if (target instanceof By by) {
+            if (!(by instanceof By.Remotable remotable)) throw new IllegalArgumentException("Unsupported locator: " + by);
+            node.put("using", remotable.getRemoteParameters().using());
+            node.put("selector", remotable.getRemoteParameters().value());
+        }
+        if (expected.length > 0) node.put("a", expected[0]);
+        if (expected.length > 1) node.put("b", expected[1]);
+        return node;
+    }
+}
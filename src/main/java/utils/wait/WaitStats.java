@@ -0,0 +1,163 @@
+package utils.wait;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import utils.TestConstants;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How long WaitUtility waits take: a latency histogram per condition and element, the
+ * slowest waits of the run with the test they ran in (ThreadContext "testName"), and a
+ * warning for every wait that used more than WAIT_WARN_PERCENT of its timeout.
+ * Timeouts count towards the slowest waits but not the histograms, which hold the time
+ * to success. ExtentReportListener publishes both tables when a test run finishes.
+ */
+public final class WaitStats {
+    private static final Logger logger = LogManager.getLogger(WaitStats.class);
+
+    private static final int WARN_PERCENT = parse(TestConstants.WAIT_WARN_PERCENT, 80);
+    private static final int SLOWEST = parse(TestConstants.WAIT_SLOWEST, 10);
+
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    // Fastest of the slowest on top, so it is the one pushed out
+    private static final PriorityQueue<Sample> slowest = new PriorityQueue<>(Comparator.comparingLong(Sample::nanos));
+
+    private WaitStats() {
+    }
+
+    record Sample(String condition, String subject, String test, long nanos, Duration timeout, boolean met) {
+    }
+
+    public static void record(String condition, String subject, long startNanos, Duration timeout, boolean met) {
+        long nanos = System.nanoTime() - startNanos;
+        String test = ThreadContext.get("testName");
+        String key = condition + " | " + (subject != null ? subject : "");
+        if (met) histograms.computeIfAbsent(key, k -> new Histogram()).record(nanos / 1000);
+        if (met && WARN_PERCENT > 0 && nanos * 100 > timeout.toNanos() * WARN_PERCENT) {
+            logger.warn("Slow wait in {}: {} '{}' took {} ms of its {} s timeout",
+                    test, condition, subject, nanos / 1_000_000, timeout.getSeconds());
+        }
+        if (SLOWEST <= 0) return;
+        synchronized (slowest) {
+            slowest.add(new Sample(condition, subject, test, nanos, timeout, met));
+            if (slowest.size() > SLOWEST) slowest.poll();
+        }
+    }
+
+    // Header row first: condition, element, count, p50, p95, p99 and max in ms
+    public static String[][] latencyTable() {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Condition", "Element", "Count", "p50 ms", "p95 ms", "p99 ms", "Max ms"});
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            String[] key = entry.getKey().split(" \\| ", 2);
+            Histogram histogram = entry.getValue();
+            synchronized (histogram) {
+                rows.add(new String[]{key[0], key[1], String.valueOf(histogram.count),
+                        millis(histogram.percentile(50)), millis(histogram.percentile(95)),
+                        millis(histogram.percentile(99)), millis(histogram.max)});
+            }
+        }
+        return rows.toArray(new String[0][]);
+    }
+
+    // Header row first, slowest wait next
+    public static String[][] slowestTable() {
+        List<Sample> samples;
+        synchronized (slowest) {
+            samples = new ArrayList<>(slowest);
+        }
+        samples.sort(Comparator.comparingLong(Sample::nanos).reversed());
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Test", "Condition", "Element", "ms", "Timeout s", "Result"});
+        for (Sample sample : samples) {
+            rows.add(new String[]{sample.test() != null ? sample.test() : "-", sample.condition(), sample.subject() != null ? sample.subject() : "-",
+                    String.valueOf(sample.nanos() / 1_000_000), String.valueOf(sample.timeout().getSeconds()),
+                    sample.met() ? "met" : "timed out"});
+        }
+        return rows.toArray(new String[0][]);
+    }
+
+    public static boolean isEmpty() {
+        synchronized (slowest) {
+            return histograms.isEmpty() && slowest.isEmpty();
+        }
+    }
+
+    public static void logSummary() {
+        String[][] rows = slowestTable();
+        logger.info("Slowest {} waits:", rows.length - 1);
+        for (int i = 1; i < rows.length; i++) {
+            logger.info("  {} ms {} '{}' in {} ({})", rows[i][3], rows[i][1], rows[i][2], rows[i][0], rows[i][5]);
+        }
+    }
+
+    public static void reset() {
+        histograms.clear();
+        synchronized (slowest) {
+            slowest.clear();
+        }
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.1f", micros / 1000d);
+    }
+
+    private static int parse(String value, int defaultValue) {
+        return value == null || value.trim().isEmpty() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Microsecond counts in log-linear buckets: 16 per power of two, so a percentile is
+     * within about 6% of the true value at any scale, in a fixed 960 counters.
+     */
+    static final class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB = 1 << SUB_BITS;
+
+        private final long[] counts = new long[SUB + (64 - SUB_BITS) * SUB];
+        long count;
+        long max;
+
+        synchronized void record(long micros) {
+            long value = Math.max(0, micros);
+            counts[index(value)]++;
+            count++;
+            max = Math.max(max, value);
+        }
+
+        // The upper bound of the bucket holding the percentile, capped at the largest value seen
+        synchronized long percentile(double percent) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(max, upper(i));
+            }
+            return max;
+        }
+
+        static int index(long value) {
+            if (value < SUB) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB - 1);
+            return SUB + (exponent - SUB_BITS) * SUB + sub;
+        }
+
+        static long upper(int index) {
+            if (index < SUB) return index;
+            int exponent = (index - SUB) / SUB + SUB_BITS;
+            long sub = (index - SUB) % SUB;
+            return ((SUB + sub + 1) << (exponent - SUB_BITS)) - 1;
+        }
+    }
+}
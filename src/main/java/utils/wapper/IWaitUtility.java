@@ -3,6 +3,7 @@ package utils.wapper;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
+import utils.wait.WaitCondition;
 
 public interface IWaitUtility {
 
@@ -19,6 +20,11 @@ public interface IWaitUtility {
     public static void waitForNumberOfElementsToBe(WebDriver driver, By locator, int number, int timeoutSeconds, String elementName) {}
     public static void waitForNumberOfElementsToBeMoreThan(WebDriver driver, By locator, int number, int timeoutSeconds, String elementName) {}
     public static void waitForNumberOfElementsToBeLessThan(WebDriver driver, By locator, int number, int timeoutSeconds, String elementName) {}
+    public static String waitForAnyOf(WebDriver driver, int timeoutSeconds, WaitCondition... conditions) { return null; }
+    public static void waitForAllOf(WebDriver driver, int timeoutSeconds, WaitCondition... conditions) {}
+    public static String waitFor(WebDriver driver, int timeoutSeconds, WaitCondition condition) { return null; }
+    public static void waitForNetworkIdle(WebDriver driver, int quietMs, int timeoutSeconds) {}
+    public static void waitForPageStable(WebDriver driver, int quietMs, int timeoutSeconds) {}
     public static void waitForUrlToBe(WebDriver driver, String url, int timeoutSeconds) {}
     public static void waitForUrlContains(WebDriver driver, String fraction, int timeoutSeconds) {}
     public static void waitForTitleToBe(WebDriver driver, String title, int timeoutSeconds) {}
@@ -3,41 +3,53 @@ package base_test;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.WebDriver;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Listeners;
 import utils.*;
-import utils.driver.DriverFactory;
+import utils.driver.DriverBinaries;
+import utils.driver.DriverKey;
 import utils.driver.DriverManager;
+import utils.driver.DriverPool;
 
-@Listeners({ExtentReportListener.class, LogListener.class, RetryListener.class})
+@Listeners({ExtentReportListener.class, LogListener.class, RetryListener.class, PrewarmListener.class})
 public class BaseTest {
     protected final Logger logger = LogManager.getLogger(this.getClass());
 
     public void setUpBrowser() {
-        String browserValue = TestConstants.BROWSER;
-        String headlessValue = TestConstants.HEADLESS;
-        String browser = (browserValue != null && !browserValue.trim().isEmpty()) ? browserValue.trim() : "chrome";
-        boolean headless = Boolean.parseBoolean(headlessValue != null ? headlessValue.trim() : "false");
         String url = TestConstants.BASE_URL;
-        WebDriver driver = DriverFactory.createInstance(browser, headless);
-        DriverManager.setDriver(driver);
-        driver.manage().window().maximize();
+        DriverKey key = driverKey();
+        WebDriver driver = DriverManager.acquire(key);
+        if (key.profile().maximize()) driver.manage().window().maximize();
         driver.get(url);
         logger.info("Browser launched and navigated to: " + url);
     }
     public void tearDownBrowser() {
-        WebDriver driver = DriverManager.getDriver();
-        try {
-            if (driver != null) {
-                logger.info("Quitting browser...");
-                driver.quit();
-            }
-        } catch (Exception e) {
-            logger.error("Error while quitting browser", e);
-        } finally {
-            DriverManager.unload();
-            logger.info("Driver unloaded from thread-local storage.");
+        if (DriverManager.getDriver() != null) {
+            logger.info("Returning browser to the pool...");
         }
+        DriverManager.unload();
+        logger.info("Driver unloaded from thread-local storage.");
+    }
+    @AfterSuite(alwaysRun = true)
+    public void closeBrowsers() {
+        DriverPool.closeIdle();
+        logger.info("Idle browsers closed.");
+    }
+    // Resolves the driver binary while the suite starts up instead of in the first setUpBrowser
+    @BeforeSuite
+    public void resolveDriverBinary() {
+        DriverBinaries.prefetch(browser());
+    }
+    private static String browser() {
+        String browserValue = TestConstants.BROWSER;
+        return (browserValue != null && !browserValue.trim().isEmpty()) ? browserValue.trim() : "chrome";
+    }
+    // The browser every test of the suite runs in, from BROWSER and HEADLESS
+    public static DriverKey driverKey() {
+        String headlessValue = TestConstants.HEADLESS;
+        boolean headless = Boolean.parseBoolean(headlessValue != null ? headlessValue.trim() : "false");
+        return new DriverKey(browser(), headless);
     }
     @BeforeSuite
     public void makeSureFoldersExits() {
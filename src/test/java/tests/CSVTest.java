@@ -2,9 +2,20 @@ package tests;
 
 import org.testng.annotations.Test;
 import utils.CSVFileUtil;
-
+import utils.DataProviders;
+import utils.TestData;
+import utils.csv.CsvIndexes;
+import utils.csv.CsvQuery;
+import utils.csv.CsvRow;
+import utils.csv.CsvSortedIndex;
+import utils.csv.CsvSource;
+
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static utils.csv.CsvQuery.col;
 
 public class CSVTest {
 
@@ -37,6 +48,13 @@ public class CSVTest {
         }
     }
 
+    @Test(enabled = false)
+    public void streamRowsCSVTest() throws IOException {
+        try (Stream<CsvRow> rows = CsvSource.of(System.getProperty("user.dir")+"/test data/csv files/SB-1505202514_P1005 1.csv").rows()) {
+            rows.limit(20).forEach(row -> System.out.println(row.index() + " " + Arrays.toString(row.toArray())));
+        }
+    }
+
     @Test(enabled = false)
     public void readSpecificRow(){
         String[] row = CSVFileUtil.readRowFromCSV(System.getProperty("user.dir")+"/test data/created csv/createdFile.csv",251);
@@ -115,6 +133,55 @@ public class CSVTest {
         }
     }
 
+    @Test(enabled = false)
+    public void filterByRowsValueIndexed() throws IOException {
+        String filePath = System.getProperty("user.dir") + "/test data/csv files/SB-1505202514_P1005 2.csv";
+        CsvIndexes.hashIndex(filePath, "Sample");
+        List<String[]> rows = CSVFileUtil.filterRowsFromCSV(filePath, "Sample", "TRA100291");
+        for (String[] row : rows) {
+            System.out.println(Arrays.toString(row));
+        }
+        CsvSortedIndex cq = CsvIndexes.sortedIndex(filePath, "Cq");
+        for (String[] row : cq.rows(cq.rowsBetween(20.0, true, 25.0, false))) {
+            System.out.println(Arrays.toString(row));
+        }
+    }
+
+    @Test(enabled = false)
+    public void queryCSVTest() throws IOException {
+        List<List<String>> rows = CsvQuery.from(System.getProperty("user.dir") + "/test data/csv files/SB-1505202514_P1005 2.csv")
+                .where(col("Sample").eq("TRA100291"))
+                .and(col("Cq").lt(30))
+                .select("Well", "Target", "Cq")
+                .toLists();
+        for (List<String> row : rows) {
+            System.out.println(row);
+        }
+    }
+
+    @Test(enabled = false)
+    public void parallelQueryCSVTest() throws IOException {
+        long count = CsvQuery.from(System.getProperty("user.dir") + "/test data/csv files/SB-1505202514_P1005 2.csv")
+                .parallel()
+                .where(col("Sample").eq("TRA100291"))
+                .count();
+        System.out.println(count);
+    }
+
+    record PlateWell(String well, String sample, String target, double cq) {
+    }
+
+    @Test(enabled = false)
+    public void readTypedCSVTest() {
+        String filePath = System.getProperty("user.dir") + "/test data/csv files/SB-1505202514_P1005 2.csv";
+        List<PlateWell> wells = CSVFileUtil.readRecordsFromCSV(filePath, PlateWell.class);
+        for (PlateWell well : wells) {
+            System.out.println(well);
+        }
+        double[] cq = CSVFileUtil.readDoubleColumnFromCSV(filePath, "Cq");
+        System.out.println(Arrays.stream(cq).filter(v -> !Double.isNaN(v)).average().orElse(Double.NaN));
+    }
+
     @Test(enabled = true)
     public void filterByRowsValueInclude() {
         List<String> colsToIncludeInRows = Arrays.asList("Sample", "Target", "Cq");
@@ -130,5 +197,10 @@ public class CSVTest {
         }
     }
 
+    @Test(enabled = false, dataProvider = "testData", dataProviderClass = DataProviders.class)
+    @TestData(file = "test data/csv files/SB-1505202514_P1005 2.csv", columns = {"Well", "Sample", "Cq"})
+    public void dataProviderCSVTest(String well, String sample, String cq) {
+        System.out.println(Thread.currentThread().getName() + " " + well + " " + sample + " " + cq);
+    }
 
 }
@@ -0,0 +1,62 @@
+package tests;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import utils.CSVFileUtil;
+import utils.ExcelUtility;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ExcelTest {
+
+    @Test(enabled = false)
+    public void csvToExcelTest(){
+        List<String[]> data = CSVFileUtil.readContentFromCSV(System.getProperty("user.dir")+"/test data/csv files/SB-1505202514_P1005 2.csv");
+        ExcelUtility.writeContentToExcel(System.getProperty("user.dir")+"/test data/created excel/createdFile.xlsx", data);
+    }
+
+    @Test(enabled = false)
+    public void readDataExcelTest(){
+        String filePath = System.getProperty("user.dir")+"/test data/created excel/createdFile.xlsx";
+        System.out.println(ExcelUtility.readSheetNames(filePath));
+        for(String[] row:ExcelUtility.readContentFromExcel(filePath)){
+            System.out.println(Arrays.toString(row));
+        }
+    }
+
+    @Test(enabled = false)
+    public void filterDataExcelTest(){
+        String filePath = System.getProperty("user.dir")+"/test data/created excel/createdFile.xlsx";
+        List<List<String>> rows = ExcelUtility.filterRowsFromExcel(filePath, "Sample", "TRA100291", Arrays.asList("Well", "Well Position"));
+        for(List<String> row:rows){
+            System.out.println(row);
+        }
+        System.out.println(ExcelUtility.readColumnFromExcel(filePath, "Well"));
+    }
+
+    @Test
+    public void failedWriteKeepsExcelTest() throws IOException {
+        Path dir = Files.createTempDirectory("excel-test");
+        String filePath = dir.resolve("kept.xlsx").toString();
+        List<String[]> data = Arrays.asList(new String[]{"Card", "Amount"}, new String[]{"4111111111111111", "12.5"});
+        ExcelUtility.writeContentToExcel(filePath, "Good", data);
+
+        Map<String, List<String[]>> sheets = new LinkedHashMap<>();
+        sheets.put("First", data);
+        sheets.put("Bad/Name", data);
+        ExcelUtility.writeSheetsToExcel(filePath, sheets);
+
+        Assert.assertEquals(ExcelUtility.readSheetNames(filePath), List.of("Good"));
+        List<String[]> rows = ExcelUtility.readContentFromExcel(filePath);
+        Assert.assertEquals(rows.get(1)[0], "4111111111111111");
+        try (var files = Files.list(dir)) {
+            Assert.assertEquals(files.count(), 1L, "temp workbook left behind");
+        }
+    }
+}
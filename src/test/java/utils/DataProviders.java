@@ -0,0 +1,225 @@
+package utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.annotations.DataProvider;
+import utils.csv.CsvRow;
+import utils.csv.CsvSource;
+import utils.excel.XlsxReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * Data providers that stream the rows of the file named by {@link TestData} on the
+ * test method. Rows are read one at a time as TestNG asks for them, never the whole
+ * file up front, and each row is handed out exactly once even when several threads
+ * pull from the same iterator. Blank rows are skipped.
+ *
+ * With DATA_SHARD_COUNT n and DATA_SHARD_INDEX i (config.properties or -D), a run only
+ * gets the data rows whose 0-based number modulo n is i, so n machines can split a file.
+ *
+ * Parameters are the {@link TestData#columns()} in order, or the first cells of the row
+ * when no columns are named; a test taking a single Map gets the whole row by header.
+ * String, int, long, double and boolean parameters (and their wrappers) are supported.
+ */
+public class DataProviders {
+    private static final Logger logger = LogManager.getLogger(DataProviders.class);
+
+    @DataProvider(name = "testData", parallel = true)
+    public static Iterator<Object[]> testData(Method method) throws IOException {
+        return rows(method);
+    }
+
+    @DataProvider(name = "testDataSequential")
+    public static Iterator<Object[]> testDataSequential(Method method) throws IOException {
+        return rows(method);
+    }
+
+    public static Iterator<Object[]> rows(Method method) throws IOException {
+        TestData data = method.getAnnotation(TestData.class);
+        if (data == null) {
+            throw new IllegalArgumentException("@TestData is missing on " + method.getName());
+        }
+        int shardCount = parse(TestConstants.DATA_SHARD_COUNT, 1);
+        int shardIndex = parse(TestConstants.DATA_SHARD_INDEX, 0);
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Invalid data shard " + shardIndex + " of " + shardCount);
+        }
+
+        Path file = Paths.get(data.file());
+        if (!file.isAbsolute()) file = Paths.get(System.getProperty("user.dir")).resolve(file);
+        RowIterator rows = open(file, data);
+        try {
+            rows.bind(method, data.columns());
+        } catch (RuntimeException e) {
+            rows.close();
+            throw e;
+        }
+        rows.shard(shardIndex, shardCount);
+        logger.info("Streaming test data for {} from {} (shard {} of {})", method.getName(), file, shardIndex + 1, shardCount);
+        return rows;
+    }
+
+    private static RowIterator open(Path file, TestData data) throws IOException {
+        if (!file.getFileName().toString().toLowerCase().endsWith(".xlsx")) {
+            CsvSource.Records records = CsvSource.of(file).records(data.headerRow());
+            return new RowIterator(records.header(), records, records::close);
+        }
+        XlsxReader reader = XlsxReader.open(file);
+        try {
+            Stream<CsvRow> stream = data.sheet().isEmpty() ? reader.rows() : reader.rows(data.sheet());
+            Iterator<CsvRow> it = stream.iterator();
+            for (int i = 0; i < data.headerRow() && it.hasNext(); i++) {
+                it.next();
+            }
+            String[] header = it.hasNext() ? it.next().toArray() : null;
+            return new RowIterator(header, it, () -> {
+                stream.close();
+                reader.close();
+            });
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    private static int parse(String value, int defaultValue) {
+        return value == null || value.trim().isEmpty() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static final class RowIterator implements Iterator<Object[]>, Closeable {
+        private final String[] header;
+        private final Iterator<CsvRow> rows;
+        private final Closeable resource;
+        private int[] columns;
+        private Class<?>[] types;
+        private boolean asMap;
+        private int shardIndex;
+        private int shardCount = 1;
+        private long dataRow;
+        private Object[] next;
+        private boolean closed;
+
+        RowIterator(String[] header, Iterator<CsvRow> rows, Closeable resource) {
+            this.header = header != null ? header : new String[0];
+            this.rows = rows;
+            this.resource = resource;
+        }
+
+        void bind(Method method, String[] names) {
+            Class<?>[] parameters = method.getParameterTypes();
+            asMap = names.length == 0 && parameters.length == 1 && parameters[0] == Map.class;
+            if (asMap) return;
+            int count = names.length > 0 ? names.length : parameters.length;
+            if (count > parameters.length) {
+                throw new IllegalArgumentException(method.getName() + " takes " + parameters.length + " parameters but " + count + " columns are named");
+            }
+            types = new Class<?>[count];
+            columns = new int[count];
+            for (int i = 0; i < count; i++) {
+                types[i] = parameters[i];
+                columns[i] = names.length > 0 ? indexOfIgnoreCase(names[i]) : i;
+                if (columns[i] == -1) throw new IllegalArgumentException("Column not found: " + names[i]);
+            }
+        }
+
+        void shard(int index, int count) {
+            shardIndex = index;
+            shardCount = count;
+        }
+
+        @Override
+        public synchronized boolean hasNext() {
+            if (next == null && !closed) advance();
+            return next != null;
+        }
+
+        @Override
+        public synchronized Object[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Object[] parameters = next;
+            next = null;
+            return parameters;
+        }
+
+        // Closes the file as soon as the last row has been read
+        private void advance() {
+            try {
+                while (rows.hasNext()) {
+                    CsvRow row = rows.next();
+                    if (isBlank(row) || dataRow++ % shardCount != shardIndex) continue;
+                    next = asMap ? new Object[]{toMap(row)} : toParameters(row);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            close();
+        }
+
+        private Object[] toParameters(CsvRow row) {
+            Object[] parameters = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                String value = row.getOrEmpty(columns[i]);
+                parameters[i] = convert(value, types[i]);
+            }
+            return parameters;
+        }
+
+        private Map<String, String> toMap(CsvRow row) {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < header.length; i++) {
+                values.put(header[i].trim(), row.getOrEmpty(i));
+            }
+            return values;
+        }
+
+        // Blank numbers read as 0 for primitives and null for wrappers
+        private static Object convert(String value, Class<?> type) {
+            if (type == String.class || type == Object.class) return value;
+            String trimmed = value.trim();
+            if (trimmed.isEmpty() && !type.isPrimitive()) return null;
+            if (type == int.class || type == Integer.class) return trimmed.isEmpty() ? 0 : Integer.parseInt(trimmed);
+            if (type == long.class || type == Long.class) return trimmed.isEmpty() ? 0L : Long.parseLong(trimmed);
+            if (type == double.class || type == Double.class) return trimmed.isEmpty() ? 0d : Double.parseDouble(trimmed);
+            if (type == boolean.class || type == Boolean.class) return Boolean.parseBoolean(trimmed);
+            throw new IllegalArgumentException("Unsupported test data parameter type: " + type.getName());
+        }
+
+        private static boolean isBlank(CsvRow row) {
+            for (int i = 0; i < row.size(); i++) {
+                if (!row.get(i).trim().isEmpty()) return false;
+            }
+            return true;
+        }
+
+        private int indexOfIgnoreCase(String column) {
+            for (int i = 0; i < header.length; i++) {
+                if (header[i].trim().equalsIgnoreCase(column.trim())) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) return;
+            closed = true;
+            try {
+                resource.close();
+            } catch (IOException | UncheckedIOException e) {
+                logger.error("Error closing test data file", e);
+            }
+        }
+    }
+}
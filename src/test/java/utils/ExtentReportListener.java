@@ -4,16 +4,21 @@ import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.MediaEntityBuilder;
 import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import org.openqa.selenium.WebElement;
 import org.testng.ITestContext;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
+import utils.concurrent.VirtualThreads;
 import utils.driver.DriverManager;
+import utils.wait.WaitStats;
 
 import java.io.File;
+import java.time.Duration;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 
 public class ExtentReportListener implements ITestListener {
 
@@ -111,6 +116,19 @@ public class ExtentReportListener implements ITestListener {
 
     @Override
     public void onFinish(ITestContext context) {
+        VirtualThreads.awaitBackground(Duration.ofSeconds(30));
+        reportWaits();
         extent.flush();
     }
+
+    // Latency percentiles per wait and the slowest waits of this run, shown in the report's Logs view
+    // rather than as a test so the test counts stay right; then starts counting afresh
+    private void reportWaits() {
+        if (WaitStats.isEmpty()) return;
+        extent.addTestRunnerOutput(List.of(
+                "<h6>Wait latency</h6>" + MarkupHelper.createTable(WaitStats.latencyTable()).getMarkup(),
+                "<h6>Slowest waits</h6>" + MarkupHelper.createTable(WaitStats.slowestTable()).getMarkup()));
+        WaitStats.logSummary();
+        WaitStats.reset();
+    }
 }
@@ -0,0 +1,104 @@
+package utils;
+
+import base_test.BaseTest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IDataProviderInterceptor;
+import org.testng.IDataProviderMethod;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import utils.driver.DriverPool;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Keeps browsers for the BaseTest methods still to come starting in the background (DRIVER_PREWARM).
+// A data-driven method counts as one test until its provider runs; rows are then counted as TestNG
+// pulls them, so streaming providers stay lazy.
+public class PrewarmListener implements ISuiteListener, ITestListener, IDataProviderInterceptor {
+
+    private static final Logger logger = LogManager.getLogger(PrewarmListener.class);
+    private static final boolean enabled = !"false".equalsIgnoreCase(String.valueOf(TestConstants.DRIVER_PREWARM).trim());
+
+    // Browser tests of the suite that have not started yet
+    private final AtomicInteger remaining = new AtomicInteger();
+
+    @Override
+    public void onStart(ISuite suite) {
+        int count = 0;
+        for (ITestNGMethod method : suite.getAllMethods()) {
+            if (needsBrowser(method)) count += Math.max(1, method.getInvocationCount());
+        }
+        remaining.set(count);
+        logger.info("{} browser tests planned in suite {}", count, suite.getName());
+        topUp();
+    }
+
+    @Override
+    public Iterator<Object[]> intercept(Iterator<Object[]> original, IDataProviderMethod dataProviderMethod,
+                                        ITestNGMethod method, ITestContext context) {
+        if (!needsBrowser(method)) return original;
+        return new Iterator<>() {
+            private int pulled;
+
+            @Override
+            public synchronized boolean hasNext() {
+                boolean more = original.hasNext();
+                // The planned test this provider stands for never runs when it has no rows
+                if (!more && pulled == 0) {
+                    pulled = -1;
+                    remaining.updateAndGet(n -> Math.max(0, n - 1));
+                }
+                return more;
+            }
+
+            @Override
+            public synchronized Object[] next() {
+                Object[] row = original.next();
+                // The first row is the test counted at suite start
+                if (pulled++ > 0) {
+                    remaining.incrementAndGet();
+                    topUp();
+                }
+                return row;
+            }
+        };
+    }
+
+    @Override
+    public void onTestStart(ITestResult result) {
+        if (needsBrowser(result.getMethod())) remaining.updateAndGet(n -> Math.max(0, n - 1));
+        topUp();
+    }
+
+    // A finished test frees a pool slot, and may have had its browser quit
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        topUp();
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        topUp();
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        topUp();
+    }
+
+    private void topUp() {
+        int needed = remaining.get();
+        if (!enabled || needed == 0) return;
+        int started = DriverPool.prewarm(BaseTest.driverKey(), needed);
+        if (started > 0) logger.info("Prewarming {} browser(s) for {} upcoming tests", started, needed);
+    }
+
+    private static boolean needsBrowser(ITestNGMethod method) {
+        return BaseTest.class.isAssignableFrom(method.getRealClass());
+    }
+}
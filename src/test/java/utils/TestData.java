@@ -0,0 +1,32 @@
+package utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Data file for a test using one of the {@link DataProviders}. The file is a .csv or
+ * .xlsx, relative to the project directory unless absolute.
+ *
+ * <pre>
+ * &#64;Test(dataProvider = "testData", dataProviderClass = DataProviders.class)
+ * &#64;TestData(file = "test data/csv files/plate.csv", columns = {"Well", "Sample"})
+ * public void checkWell(String well, String sample) { ... }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TestData {
+
+    String file();
+
+    // Header columns passed as the test parameters, in order; empty passes the first cells of the row
+    String[] columns() default {};
+
+    // headerRowNum - 1, rows above it are skipped
+    int headerRow() default 0;
+
+    // Excel only, the first sheet when empty
+    String sheet() default "";
+}